@@ -0,0 +1,29 @@
+package bridge;
+
+/**
+ * Makes the decisions for a seat in a {@link Game}: a person at a display, a
+ * program, or anything else.
+ *
+ * An agent is only asked when it is the seat's turn. Declarer's agent is
+ * also asked to play dummy's cards.
+ */
+public interface Agent {
+    /**
+     * Choose a call in the auction.
+     *
+     * @param game the game, in the auction
+     * @param seat the seat to call for
+     * @return a legal call
+     */
+    Call call(Game game, int seat);
+
+    /**
+     * Choose a card to play.
+     *
+     * @param game the game, in the play
+     * @param seat the seat to play for, which is dummy when the agent is
+     *             declarer's
+     * @return a legal card held by {@code seat}
+     */
+    Card play(Game game, int seat);
+}
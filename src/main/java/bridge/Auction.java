@@ -0,0 +1,137 @@
+package bridge;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Converts auctions to and from compact sequences of call codes (see
+ * {@link Notation}), one byte per call.
+ *
+ * Two auctions are the same exactly when their bytes are, so the bytes can
+ * be hashed, compared and stored directly, as keys of caches and databases.
+ * In text, calls are written as described in {@link Call#isCall(String)} and
+ * separated by spaces or commas, like {@code "1S P 2S X P P P"}.
+ */
+public final class Auction {
+    private Auction() {} // An Auction object should never be instantiated
+
+    /**
+     * Encode a list of calls.
+     *
+     * @param calls the calls
+     * @return the code of each call, in order
+     */
+    public static byte[] encode(List<Call> calls) {
+        byte[] codes = new byte[calls.size()];
+        for (int i = 0; i < codes.length; i++) { codes[i] = (byte) calls.get(i).code(); }
+
+        return codes;
+    }
+
+    /**
+     * Decode calls into their canonical instances.
+     *
+     * @param codes the code of each call
+     * @return the calls, in order
+     */
+    public static List<Call> decode(byte[] codes) {
+        List<Call> calls = new ArrayList<Call>(codes.length);
+        for (byte code : codes) { calls.add(Call.of(code)); }
+
+        return calls;
+    }
+
+    /**
+     * Parse an auction.
+     *
+     * @param s the text to parse
+     * @return the code of each call, in order
+     * @throws MalformedCallException if a call isn't valid
+     */
+    public static byte[] parse(CharSequence s) {
+        byte[] codes = new byte[Auction.count(s)];
+        int n = 0, i = 0, end = s.length();
+        while (i < end) {
+            while (i < end && Auction.isSeparator(s.charAt(i))) { i++; }
+            int start = i;
+            while (i < end && !Auction.isSeparator(s.charAt(i))) { i++; }
+            if (i == start) { break; }
+
+            int code = Notation.call(s, start, i);
+            if (code == Notation.INVALID) { throw new MalformedCallException(s.subSequence(start, i).toString()); }
+            codes[n++] = (byte) code;
+        }
+
+        return codes;
+    }
+
+    /**
+     * Parse an auction from a range of ASCII bytes, such as part of a file.
+     *
+     * @param b the bytes to parse
+     * @param start the position of the first byte
+     * @param end the position after the last byte
+     * @param out where to store the code of each call, which must be large
+     *            enough
+     * @return the number of calls, or {@code Notation.INVALID} if a call
+     *         isn't valid
+     */
+    public static int parse(byte[] b, int start, int end, byte[] out) {
+        int n = 0, i = start;
+        while (i < end) {
+            while (i < end && Auction.isSeparator(b[i])) { i++; }
+            int first = i;
+            while (i < end && !Auction.isSeparator(b[i])) { i++; }
+            if (i == first) { break; }
+
+            int code = Notation.call(b, first, i);
+            if (code == Notation.INVALID) { return Notation.INVALID; }
+            out[n++] = (byte) code;
+        }
+
+        return n;
+    }
+
+    /**
+     * Format an auction.
+     *
+     * @param codes the code of each call
+     * @return the calls separated by spaces
+     */
+    public static String format(byte[] codes) { return Auction.format(codes, 0, codes.length); }
+
+    /**
+     * Format part of an auction.
+     *
+     * @param codes the code of each call
+     * @param start the position of the first call
+     * @param end the position after the last call
+     * @return the calls separated by spaces
+     */
+    public static String format(byte[] codes, int start, int end) {
+        StringBuilder sb = new StringBuilder(4 * (end - start));
+        for (int i = start; i < end; i++) {
+            if (i > start) { sb.append(' '); }
+            sb.append(Call.of(codes[i]));
+        }
+
+        return sb.toString();
+    }
+
+    /**
+     * Count the words in some text, as an upper bound on its calls.
+     */
+    private static int count(CharSequence s) {
+        int n = 0;
+        boolean inWord = false;
+        for (int i = 0; i < s.length(); i++) {
+            boolean separator = Auction.isSeparator(s.charAt(i));
+            if (!separator && !inWord) { n++; }
+            inWord = !separator;
+        }
+
+        return n;
+    }
+
+    private static boolean isSeparator(int c) { return c == ' ' || c == ',' || c == '\t' || c == '\n' || c == '\r'; }
+}
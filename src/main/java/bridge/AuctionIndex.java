@@ -0,0 +1,489 @@
+package bridge;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * An index on disk from auctions to the boards they were bid on, for finding
+ * every board whose auction starts with some calls, like 1NT P 2C P 2H.
+ *
+ * Auctions are kept in the form of {@link Auction}, with the passes before
+ * the first bid left out as in {@link BiddingSystem}. The index is a
+ * directory of segments, each an immutable file holding a batch of boards
+ * sorted by auction, which is the order a depth-first walk of a trie of the
+ * auctions would visit them in. So the boards of any prefix are one run of
+ * a segment, found with two binary searches of the memory-mapped file, and
+ * a query reads only the pages it needs instead of scanning every board.
+ *
+ * Boards added are held in memory until {@link #flush()} writes them as a
+ * new segment, so results can be appended as they arrive. Queries look at
+ * every segment, so {@link #compact()} merges them into one from time to
+ * time. A segment must be smaller than 2 GB.
+ *
+ * Segment files are numbered in the order they were written. A merged
+ * segment records in its header how many numbers below its own it replaces,
+ * and its sources are deleted only after it is in place, so if a compaction
+ * stops between the two, opening the index skips and deletes the sources
+ * instead of counting their boards twice. The same goes for sources that
+ * can't be deleted while they are still mapped, as on Windows.
+ *
+ * A segment file holds, after a header of four {@code int}s (a magic number,
+ * the number of boards, the number of bytes of auctions, and the number of
+ * segments before it that it replaces, which is 0 unless it was merged):
+ * - the offset of each board's auction, and then the total, as
+ *   {@code int}s
+ * - the auctions, one byte per call
+ * - padding to a multiple of 8 bytes
+ * - the board ids, as {@code long}s
+ */
+public class AuctionIndex implements Closeable {
+    private static final int MAGIC = 0x41495831; // "AIX1"
+    private static final int HEADER = 16;
+    private static final String PREFIX = "auctions-";
+    private static final String SUFFIX = ".seg";
+
+    private final Path directory;
+    private final List<Segment> segments;
+
+    /**
+     * The boards added since the last flush.
+     */
+    private final List<byte[]> pendingAuctions;
+    private final List<Long> pendingIds;
+
+    /**
+     * The number of the next segment file.
+     */
+    private int next;
+
+    private boolean closed;
+
+    /**
+     * A memory-mapped segment file.
+     */
+    private static final class Segment {
+        final Path file;
+        final MappedByteBuffer buffer;
+        final int number;
+        final int count;
+        final int keys;
+        final int ids;
+
+        /**
+         * The segments this one replaces are numbered from
+         * {@code number - replaces} to {@code number - 1}.
+         */
+        final int replaces;
+
+        Segment(Path file) throws IOException {
+            this.file = file;
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+                this.buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            }
+            if (this.buffer.getInt(0) != MAGIC) { throw new IOException("Not an auction index segment: " + file); }
+
+            this.number = AuctionIndex.number(file);
+            this.count = this.buffer.getInt(4);
+            this.keys = HEADER + 4 * (this.count + 1);
+            this.ids = AuctionIndex.align(this.keys + this.buffer.getInt(8));
+            this.replaces = this.buffer.getInt(12);
+        }
+
+        int start(int i) { return this.keys + this.buffer.getInt(HEADER + 4 * i); }
+
+        int length(int i) { return this.buffer.getInt(HEADER + 4 * (i + 1)) - this.buffer.getInt(HEADER + 4 * i); }
+
+        long id(int i) { return this.buffer.getLong(this.ids + 8 * i); }
+
+        /**
+         * Compare the auction of a board with a prefix, as if the auction
+         * were cut to the prefix's length.
+         */
+        int compare(int i, byte[] prefix) {
+            int start = this.start(i), length = Math.min(this.length(i), prefix.length);
+            for (int j = 0; j < length; j++) {
+                int diff = this.buffer.get(start + j) - prefix[j];
+                if (diff != 0) { return diff; }
+            }
+
+            return length < prefix.length ? -1 : 0;
+        }
+
+        /**
+         * Find the first board whose auction, cut to the prefix's length, is
+         * at least the prefix (if {@code after} is false) or more than it.
+         */
+        int search(byte[] prefix, boolean after) {
+            int lo = 0, hi = this.count;
+            while (lo < hi) {
+                int mid = (lo + hi) >>> 1;
+                int c = this.compare(mid, prefix);
+                if (c < 0 || (after && c == 0)) { lo = mid + 1; }
+                else                            { hi = mid; }
+            }
+
+            return lo;
+        }
+
+        /**
+         * Compare the auctions of two boards, which may be in different
+         * segments, and then their ids.
+         */
+        static int compare(Segment a, int i, Segment b, int j) {
+            int as = a.start(i), al = a.length(i), bs = b.start(j), bl = b.length(j);
+            for (int k = 0; k < Math.min(al, bl); k++) {
+                int diff = a.buffer.get(as + k) - b.buffer.get(bs + k);
+                if (diff != 0) { return diff; }
+            }
+            if (al != bl) { return al - bl; }
+
+            return Long.compare(a.id(i), b.id(j));
+        }
+    }
+
+    /**
+     * Open an index, creating its directory if there isn't one. The files
+     * left behind by a flush or compaction that didn't finish are deleted.
+     *
+     * @param directory the directory of the segment files
+     * @throws IOException if the directory or a segment can't be read, or a
+     *                     leftover temporary file can't be deleted
+     */
+    public AuctionIndex(Path directory) throws IOException {
+        this.directory = directory;
+        this.segments = new ArrayList<Segment>();
+        this.pendingAuctions = new ArrayList<byte[]>();
+        this.pendingIds = new ArrayList<Long>();
+
+        Files.createDirectories(directory);
+        List<Path> files = new ArrayList<Path>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, PREFIX + "*" + SUFFIX)) {
+            for (Path file : stream) { files.add(file); }
+        }
+        files.sort(null);
+
+        // Skip the sources of a merged segment whose compaction didn't get to
+        // delete them, reading only the headers so that they can be deleted
+        // before anything maps them
+        int[] numbers = new int[files.size()], replaces = new int[files.size()];
+        for (int i = 0; i < files.size(); i++) {
+            numbers[i] = AuctionIndex.number(files.get(i));
+            replaces[i] = AuctionIndex.replaces(files.get(i));
+            this.next = Math.max(this.next, numbers[i] + 1);
+        }
+        for (int i = 0; i < files.size(); i++) {
+            boolean replaced = false;
+            for (int j = 0; j < files.size(); j++) {
+                if (numbers[i] >= numbers[j] - replaces[j] && numbers[i] < numbers[j]) { replaced = true; }
+            }
+            if (replaced) { AuctionIndex.deleteReplaced(files.get(i)); }
+            else          { this.segments.add(new Segment(files.get(i))); }
+        }
+
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, PREFIX + "*" + SUFFIX + ".tmp")) {
+            for (Path file : stream) { Files.delete(file); }
+        }
+    }
+
+    /**
+     * Get the key of an auction: its codes without the passes before the
+     * first bid.
+     *
+     * @param auction the code of each call (see {@link Auction})
+     * @return the key, which may be the auction itself
+     */
+    public static byte[] key(byte[] auction) {
+        int i = 0;
+        while (i < auction.length && auction[i] == Notation.PASS) { i++; }
+
+        return i == 0 ? auction : Arrays.copyOfRange(auction, i, auction.length);
+    }
+
+    /**
+     * Add a board. It can be found at once, and is written to disk by the
+     * next {@link #flush()}.
+     *
+     * @param board the id of the board
+     * @param auction the code of each call of its auction
+     * @throws IllegalStateException if the index is closed
+     */
+    public void add(long board, byte[] auction) {
+        this.checkOpen();
+        this.pendingAuctions.add(AuctionIndex.key(auction).clone());
+        this.pendingIds.add(board);
+    }
+
+    /**
+     * Add a board.
+     *
+     * @param board the id of the board
+     * @param calls the calls of its auction
+     * @throws IllegalStateException if the index is closed
+     */
+    public void add(long board, List<Call> calls) { this.add(board, Auction.encode(calls)); }
+
+    /**
+     * Write the boards added since the last flush to a new segment.
+     *
+     * @throws IOException if the segment can't be written
+     * @throws IllegalStateException if the index is closed
+     */
+    public void flush() throws IOException {
+        this.checkOpen();
+        int count = this.pendingIds.size();
+        if (count == 0) { return; }
+
+        Integer[] order = new Integer[count];
+        for (int i = 0; i < count; i++) { order[i] = i; }
+        Arrays.sort(order, (a, b) -> {
+            int c = Arrays.compare(this.pendingAuctions.get(a), this.pendingAuctions.get(b));
+            return c != 0 ? c : Long.compare(this.pendingIds.get(a), this.pendingIds.get(b));
+        });
+
+        int keyBytes = 0;
+        for (byte[] auction : this.pendingAuctions) { keyBytes += auction.length; }
+
+        Path file = this.segmentFile(this.next++);
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (Writer out = new Writer(temp, count, keyBytes, 0)) {
+            for (int i : order) { out.put(this.pendingAuctions.get(i), this.pendingAuctions.get(i).length, this.pendingIds.get(i)); }
+        }
+        Files.move(temp, file, StandardCopyOption.ATOMIC_MOVE);
+
+        this.segments.add(new Segment(file));
+        this.pendingAuctions.clear();
+        this.pendingIds.clear();
+    }
+
+    /**
+     * Merge every segment, after a flush, into one. A source segment that
+     * can't be deleted yet, as on Windows while it is still mapped, is left
+     * for the next open of the index to delete.
+     *
+     * @throws IOException if the merged segment can't be written
+     * @throws IllegalStateException if the index is closed
+     */
+    public void compact() throws IOException {
+        this.flush();
+        if (this.segments.size() <= 1) { return; }
+
+        long count = 0, keyBytes = 0;
+        for (Segment s : this.segments) {
+            count += s.count;
+            keyBytes += s.buffer.getInt(8);
+        }
+        if (AuctionIndex.align(HEADER + 4 * (count + 1) + keyBytes) + 8 * count > Integer.MAX_VALUE) {
+            throw new IOException("The merged segment would be 2 GB or more.");
+        }
+
+        // Merge the sorted segments, a cursor of segment and board each
+        PriorityQueue<int[]> cursors = new PriorityQueue<int[]>(
+            (a, b) -> Segment.compare(this.segments.get(a[0]), a[1], this.segments.get(b[0]), b[1]));
+        for (int s = 0; s < this.segments.size(); s++) {
+            if (this.segments.get(s).count > 0) { cursors.add(new int[] {s, 0}); }
+        }
+
+        int number = this.next++;
+        int first = number;
+        for (Segment s : this.segments) { first = Math.min(first, s.number); }
+
+        Path file = this.segmentFile(number);
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        byte[] key = new byte[AuctionState.MAX_CALLS];
+        try (Writer out = new Writer(temp, (int) count, (int) keyBytes, number - first)) {
+            while (!cursors.isEmpty()) {
+                int[] cursor = cursors.poll();
+                Segment s = this.segments.get(cursor[0]);
+                int length = s.length(cursor[1]);
+                s.buffer.get(s.start(cursor[1]), key, 0, length);
+                out.put(key, length, s.id(cursor[1]));
+
+                if (++cursor[1] < s.count) { cursors.add(cursor); }
+            }
+        }
+        Files.move(temp, file, StandardCopyOption.ATOMIC_MOVE); // From here on, opening skips the old segments
+
+        List<Path> old = new ArrayList<Path>();
+        for (Segment s : this.segments) { old.add(s.file); }
+        this.segments.clear();
+        this.segments.add(new Segment(file));
+        for (Path f : old) { AuctionIndex.deleteReplaced(f); }
+    }
+
+    /**
+     * Find the boards whose auctions start with some calls.
+     *
+     * @param prefix the code of each call (see {@link Auction}); passes
+     *               before the first bid are ignored
+     * @return the ids of the boards, in no particular order
+     * @throws IllegalStateException if the index is closed
+     */
+    public long[] find(byte[] prefix) {
+        this.checkOpen();
+        byte[] key = AuctionIndex.key(prefix);
+        long[] out = new long[this.count(key)];
+        int n = 0;
+
+        for (Segment s : this.segments) {
+            for (int i = s.search(key, false), end = s.search(key, true); i < end; i++) { out[n++] = s.id(i); }
+        }
+        for (int i = 0; i < this.pendingIds.size(); i++) {
+            if (AuctionIndex.startsWith(this.pendingAuctions.get(i), key)) { out[n++] = this.pendingIds.get(i); }
+        }
+
+        return out;
+    }
+
+    /**
+     * Find the boards whose auctions start with some calls.
+     *
+     * @param prefix the calls
+     * @return the ids of the boards, in no particular order
+     * @throws IllegalStateException if the index is closed
+     */
+    public long[] find(List<Call> prefix) { return this.find(Auction.encode(prefix)); }
+
+    /**
+     * Count the boards whose auctions start with some calls, without
+     * reading their ids.
+     *
+     * @param prefix the code of each call; passes before the first bid are
+     *               ignored
+     * @return the number of boards
+     * @throws IllegalStateException if the index is closed
+     */
+    public int count(byte[] prefix) {
+        this.checkOpen();
+        byte[] key = AuctionIndex.key(prefix);
+        int n = 0;
+        for (Segment s : this.segments) { n += s.search(key, true) - s.search(key, false); }
+        for (byte[] auction : this.pendingAuctions) {
+            if (AuctionIndex.startsWith(auction, key)) { n++; }
+        }
+
+        return n;
+    }
+
+    /**
+     * Get the number of segment files.
+     *
+     * @return the number of segments
+     * @throws IllegalStateException if the index is closed
+     */
+    public int segments() {
+        this.checkOpen();
+        return this.segments.size();
+    }
+
+    /**
+     * Flush the boards added and close the index. The index can't be used
+     * afterwards; closing it again does nothing.
+     *
+     * @throws IOException if the boards can't be written
+     */
+    public void close() throws IOException {
+        if (this.closed) { return; }
+
+        this.flush();
+        this.segments.clear();
+        this.closed = true;
+    }
+
+    private void checkOpen() {
+        if (this.closed) { throw new IllegalStateException("The index is closed."); }
+    }
+
+    private Path segmentFile(int number) {
+        return this.directory.resolve(String.format("%s%06d%s", PREFIX, number, SUFFIX));
+    }
+
+    private static int number(Path file) {
+        String name = file.getFileName().toString();
+        return Integer.parseInt(name.substring(PREFIX.length(), name.length() - SUFFIX.length()));
+    }
+
+    /**
+     * Read the number of segments a segment file replaces from its header,
+     * without mapping the file.
+     */
+    private static int replaces(Path file) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            while (header.hasRemaining() && channel.read(header) >= 0) { }
+        }
+        if (header.hasRemaining() || header.getInt(0) != MAGIC) {
+            throw new IOException("Not an auction index segment: " + file);
+        }
+
+        return header.getInt(12);
+    }
+
+    /**
+     * Delete a segment file that a merged segment replaces. A file that is
+     * still mapped can't be deleted on some systems, such as Windows; it is
+     * then left for the next open of the index, which skips it and deletes it.
+     */
+    private static void deleteReplaced(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        }
+        catch (IOException e) {
+            // Left for the next open
+        }
+    }
+
+    private static boolean startsWith(byte[] auction, byte[] prefix) {
+        return auction.length >= prefix.length &&
+               Arrays.equals(auction, 0, prefix.length, prefix, 0, prefix.length);
+    }
+
+    private static int align(long position) { return (int) ((position + 7) & ~7L); }
+
+    /**
+     * Writes a segment file, with the boards given in order.
+     */
+    private static final class Writer implements Closeable {
+        private final FileChannel channel;
+        private final MappedByteBuffer buffer;
+        private final int keys;
+        private final int ids;
+        private int board;
+        private int offset;
+
+        Writer(Path file, int count, int keyBytes, int replaces) throws IOException {
+            this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                                            StandardOpenOption.READ, StandardOpenOption.WRITE);
+            this.keys = HEADER + 4 * (count + 1);
+            this.ids = AuctionIndex.align(this.keys + keyBytes);
+            this.buffer = this.channel.map(FileChannel.MapMode.READ_WRITE, 0, this.ids + 8L * count);
+
+            this.buffer.putInt(0, MAGIC).putInt(4, count).putInt(8, keyBytes).putInt(12, replaces);
+        }
+
+        void put(byte[] key, int length, long id) {
+            this.buffer.putInt(HEADER + 4 * this.board, this.offset);
+            this.buffer.put(this.keys + this.offset, key, 0, length);
+            this.buffer.putLong(this.ids + 8 * this.board, id);
+            this.offset += length;
+            this.board++;
+        }
+
+        public void close() throws IOException {
+            this.buffer.putInt(HEADER + 4 * this.board, this.offset);
+            this.buffer.force();
+            this.channel.close();
+        }
+    }
+}
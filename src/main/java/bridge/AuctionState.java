@@ -0,0 +1,249 @@
+package bridge;
+
+/**
+ * An auction as a state that calls can be made to and taken back from, for
+ * bidding bots and simulations that try millions of auctions.
+ *
+ * Calls are the codes of {@link Notation} (0-37). Everything needed to
+ * check a call and to find the contract is packed into one {@code long}:
+ * the highest bid, whether it is doubled, who made it, the number of passes
+ * since the last other call, and the seat of each side that first bid each
+ * strain. So {@link #call(int)}, {@link #undo()}, {@link #legal()} and
+ * {@link #declarer()} all take constant time and never allocate. The rules
+ * are the same as {@link Game#isLegal(Call)}.
+ */
+public class AuctionState {
+    /**
+     * The most calls an auction can have: three passes, then every bid
+     * doubled and redoubled, then three passes.
+     */
+    public static final int MAX_CALLS = 3 + 35 * 9 + 1;
+
+    /**
+     * The mask of all 38 calls.
+     */
+    private static final long ALL = (1L << Notation.CALLS) - 1;
+
+    /**
+     * The positions of the fields of a packed state. The highest bid is 0
+     * if there hasn't been one, and the first bidders are 0 if nobody has
+     * bid the strain or else the seat plus one, three bits each, indexed by
+     * {@code 5 * side + strain}.
+     */
+    private static final int BID = 0;
+    private static final int DOUBLED = 6;
+    private static final int BIDDER = 8;
+    private static final int PASSES = 10;
+    private static final int FIRST = 13;
+
+    /**
+     * The seat that called first.
+     */
+    private int dealer;
+
+    /**
+     * The calls made, in order.
+     */
+    private final byte[] calls;
+
+    /**
+     * The packed state before each call, indexed by call.
+     */
+    private final long[] states;
+
+    /**
+     * The number of calls made.
+     */
+    private int size;
+
+    /**
+     * The packed state now.
+     */
+    private long state;
+
+    /**
+     * Create an auction with no calls.
+     *
+     * @param dealer the seat to call first
+     */
+    public AuctionState(int dealer) {
+        this.dealer = dealer;
+        this.calls = new byte[MAX_CALLS];
+        this.states = new long[MAX_CALLS];
+    }
+
+    /**
+     * Take back every call and start a new auction, so that one state can
+     * be used for many auctions.
+     *
+     * @param dealer the seat to call first
+     */
+    public void reset(int dealer) {
+        this.dealer = dealer;
+        this.size = 0;
+        this.state = 0;
+    }
+
+    /**
+     * Get the seat that called first.
+     *
+     * @return {@code Rules.NORTH} to {@code Rules.WEST}
+     */
+    public int dealer() { return this.dealer; }
+
+    /**
+     * Get the seat to call next.
+     *
+     * @return {@code Rules.NORTH} to {@code Rules.WEST}
+     */
+    public int turn() { return (this.dealer + this.size) % 4; }
+
+    /**
+     * Get the number of calls made.
+     *
+     * @return 0 to {@link #MAX_CALLS}, inclusive
+     */
+    public int size() { return this.size; }
+
+    /**
+     * Get a call made.
+     *
+     * @param i the number of calls before it
+     * @return the code of the call
+     */
+    public int callAt(int i) { return this.calls[i]; }
+
+    /**
+     * Get the calls made, in the form of {@link Auction}.
+     *
+     * @return a copy of the code of each call, in order
+     */
+    public byte[] calls() { return java.util.Arrays.copyOf(this.calls, this.size); }
+
+    /**
+     * Get the highest bid.
+     *
+     * @return the code of the bid, or {@code Notation.INVALID} if there
+     *         hasn't been one
+     */
+    public int lastBid() {
+        int bid = this.field(BID, 0x3F);
+        return bid != 0 ? bid : Notation.INVALID;
+    }
+
+    /**
+     * Get whether the highest bid is doubled.
+     *
+     * @return {@code Rules.UNDOUBLED}, {@code Rules.DOUBLE}, or
+     *         {@code Rules.REDOUBLE}
+     */
+    public int doubled() { return this.field(DOUBLED, 3); }
+
+    /**
+     * Get the number of passes since the last bid, double or redouble.
+     *
+     * @return 0-4, inclusive
+     */
+    public int passes() { return this.field(PASSES, 7); }
+
+    /**
+     * Check if the auction is over: three passes after a bid, or four
+     * passes to start.
+     *
+     * @return {@code true} if no more calls may be made
+     */
+    public boolean isFinished() {
+        return this.passes() >= (this.field(BID, 0x3F) != 0 ? 3 : 4);
+    }
+
+    /**
+     * Get the declarer of the highest bid: the player of the side that made
+     * it who first bid its strain.
+     *
+     * @return {@code Rules.NORTH} to {@code Rules.WEST}, or -1 if there
+     *         hasn't been a bid
+     */
+    public int declarer() {
+        int bid = this.field(BID, 0x3F);
+        if (bid == 0) { return -1; }
+
+        int side = this.field(BIDDER, 3) % 2;
+        return this.field(FIRST + 3 * (5 * side + Notation.strain(bid)), 7) - 1;
+    }
+
+    /**
+     * Get the calls that are legal now.
+     *
+     * @return a mask with bit {@code code} set for each legal call, or 0 if
+     *         the auction is over
+     */
+    public long legal() {
+        if (this.isFinished()) { return 0; }
+
+        int bid = this.field(BID, 0x3F);
+        if (bid == 0) { return ALL & ~((1L << Notation.FIRST_BID) - 1) | 1L << Notation.PASS; }
+
+        // Only an opponent of the bidder may double, and only its side may redouble
+        long legal = ALL & ~((1L << (bid + 1)) - 1) | 1L << Notation.PASS;
+        int doubled = this.field(DOUBLED, 3);
+        boolean opponent = this.field(BIDDER, 3) % 2 != this.turn() % 2;
+        if (doubled == Rules.UNDOUBLED && opponent)     { legal |= 1L << Notation.DOUBLE; }
+        else if (doubled == Rules.DOUBLE && !opponent) { legal |= 1L << Notation.REDOUBLE; }
+
+        return legal;
+    }
+
+    /**
+     * Check if a call is legal now.
+     *
+     * @param code the code of the call
+     * @return {@code true} if the call may be made
+     */
+    public boolean isLegal(int code) {
+        return code >= 0 && code < Notation.CALLS && (this.legal() >>> code & 1) != 0;
+    }
+
+    /**
+     * Make a call for the seat whose turn it is.
+     *
+     * @param code the code of the call, which must be legal
+     * @throws IllegalArgumentException if the call isn't legal
+     */
+    public void call(int code) {
+        if (!this.isLegal(code)) { throw new IllegalArgumentException("Illegal call: " + code); }
+
+        long s = this.state;
+        this.states[this.size] = s;
+        int seat = this.turn();
+
+        if (code == Notation.PASS) {
+            s += 1L << PASSES;
+        }
+        else if (Call.isDouble(code)) {
+            s = s & ~(3L << DOUBLED | 7L << PASSES) | (long) code << DOUBLED;
+        }
+        else {
+            s = s & ~(0x3FL << BID | 3L << DOUBLED | 3L << BIDDER | 7L << PASSES) |
+                (long) code << BID | (long) seat << BIDDER;
+
+            int first = FIRST + 3 * (5 * (seat % 2) + Notation.strain(code));
+            if ((s >>> first & 7) == 0) { s |= (long) (seat + 1) << first; }
+        }
+
+        this.calls[this.size++] = (byte) code;
+        this.state = s;
+    }
+
+    /**
+     * Take back the last call.
+     *
+     * @throws IllegalStateException if no calls have been made
+     */
+    public void undo() {
+        if (this.size == 0) { throw new IllegalStateException("No calls to take back."); }
+
+        this.state = this.states[--this.size];
+    }
+
+    private int field(int position, int mask) { return (int) (this.state >>> position) & mask; }
+}
@@ -0,0 +1,185 @@
+package bridge;
+
+/**
+ * Throughput benchmarks, run from the command line as
+ * {@code java bridge.Benchmark <name> [arguments]}.
+ *
+ * Each benchmark warms up before it is timed and prints a rate.
+ */
+public final class Benchmark {
+    private Benchmark() {} // A Benchmark object should never be instantiated
+
+    public static void main(String[] args) {
+        String name = args.length > 0 ? args[0] : "";
+
+        if (name.equals("deals")) {
+            Benchmark.deals(args.length > 1 ? Integer.parseInt(args[1]) : 10_000_000);
+        }
+        else if (name.equals("dd")) {
+            Benchmark.doubleDummy(args.length > 1 ? Integer.parseInt(args[1]) : 200);
+        }
+        else if (name.equals("games")) {
+            Benchmark.games(args.length > 1 ? Integer.parseInt(args[1]) : 1_000_000);
+        }
+        else if (name.equals("sd")) {
+            Benchmark.singleDummy(args.length > 1 ? Integer.parseInt(args[1]) : 100);
+        }
+        else if (name.equals("pbn")) {
+            Benchmark.pbn(args.length > 1 ? Integer.parseInt(args[1]) : 1_000_000);
+        }
+        else {
+            System.out.println("Usage: java bridge.Benchmark deals|dd|games|sd|pbn [count]");
+        }
+    }
+
+    /**
+     * Generate packed deals on all cores.
+     *
+     * @param count the number of deals to time
+     */
+    private static void deals(int count) {
+        DealGenerator.generate(1, Math.min(count, 1_000_000)); // Warm up
+
+        long start = System.nanoTime();
+        byte[] deals = DealGenerator.generate(2, count);
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        System.out.printf("%d deals (%d bytes) in %.3f s: %.0f deals/second on %d threads%n",
+                          count, deals.length, seconds, count / seconds,
+                          Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Compute the double-dummy tables of random deals on all cores, with a
+     * shared transposition table.
+     *
+     * @param count the number of deals to time
+     */
+    private static void doubleDummy(int count) {
+        TranspositionTable table = new TranspositionTable(256);
+        DoubleDummyTable.solveAll(DealGenerator.generate(1, 20), 20, table); // Warm up
+
+        byte[] deals = DealGenerator.generate(2, count);
+        long hits = table.hits(), misses = table.misses();
+        long collisions = table.collisions(), overwrites = table.overwrites();
+        long start = System.nanoTime();
+        DoubleDummyTable.solveAll(deals, count, table);
+        double seconds = (System.nanoTime() - start) / 1e9;
+        hits = table.hits() - hits;
+        misses = table.misses() - misses;
+
+        System.out.printf("%d double-dummy tables in %.3f s: %.2f deals/second on %d threads%n",
+                          count, seconds, count / seconds, Runtime.getRuntime().availableProcessors());
+        System.out.printf("Table: %d probes, %.1f%% hits, %d collisions, %d overwrites%n",
+                          hits + misses, 100.0 * hits / (hits + misses),
+                          table.collisions() - collisions, table.overwrites() - overwrites);
+    }
+
+    /**
+     * Play whole games headless with random agents, on one thread.
+     *
+     * @param count the number of games to time
+     */
+    private static void games(int count) {
+        java.util.SplittableRandom random = new java.util.SplittableRandom(3);
+        Deck deck = new Deck(random);
+        Agent agent = new RandomAgent(random);
+        Agent[] agents = {agent, agent, agent, agent};
+
+        long total = 0;
+        for (int i = 0; i < Math.min(count, 100_000); i++) { // Warm up
+            deck.shuffle();
+            total += new Game(deck, i % 4).run(agents);
+        }
+
+        long start = System.nanoTime();
+        for (int i = 0; i < count; i++) {
+            deck.shuffle();
+            total += new Game(deck, i % 4).run(agents);
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        System.out.printf("%d games in %.3f s: %.0f games/second (checksum %d)%n",
+                          count, seconds, count / seconds, total);
+    }
+
+    /**
+     * Write random games to a temporary PBN file and time reading it back,
+     * on one thread.
+     *
+     * @param count the number of games
+     */
+    private static void pbn(int count) {
+        try {
+            java.nio.file.Path file = java.nio.file.Files.createTempFile("benchmark", ".pbn");
+            try {
+                java.util.SplittableRandom random = new java.util.SplittableRandom(5);
+                DealGenerator generator = new DealGenerator(random);
+                Agent agent = new RandomAgent(random);
+                Agent[] agents = {agent, agent, agent, agent};
+                long[] hands = new long[4];
+                try (PbnWriter out = new PbnWriter(java.nio.file.Files.newOutputStream(file))) {
+                    for (int board = 1; board <= count; board++) {
+                        generator.next(hands);
+                        int dealer = Duplicate.dealer(board), vulnerability = Duplicate.vulnerability(board);
+                        Game game = new Game(hands, dealer, vulnerability);
+                        game.run(agents);
+
+                        Contract contract = game.contract();
+                        int made = 0;
+                        for (int r : game.results()) {
+                            if (contract != null && r == contract.declarer() % 2) { made++; }
+                        }
+                        out.write(new HandRecord(board, dealer, vulnerability, hands, Auction.encode(game.calls()),
+                                                 contract, contract != null ? made : -1));
+                    }
+                }
+
+                long bytes = java.nio.file.Files.size(file);
+                long total = 0;
+                for (int run = 0; run < 2; run++) { // Warm up, then time
+                    long start = System.nanoTime();
+                    int n = 0;
+                    try (PbnReader in = new PbnReader(file)) {
+                        while (in.hasNext()) {
+                            total += in.next().score();
+                            n++;
+                        }
+                    }
+                    double seconds = (System.nanoTime() - start) / 1e9;
+
+                    if (run == 1) {
+                        System.out.printf("%d games (%d bytes) in %.3f s: %.1f MB/s, %.0f games/second (checksum %d)%n",
+                                          n, bytes, seconds, bytes / seconds / 1e6, n / seconds, total);
+                    }
+                }
+            }
+            finally {
+                java.nio.file.Files.delete(file);
+            }
+        }
+        catch (java.io.IOException e) {
+            throw new java.io.UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Analyse a random deal single-dummy from South's seat, in every strain,
+     * on all cores.
+     *
+     * @param count the most layouts to solve
+     */
+    private static void singleDummy(int count) {
+        long[] hands = new long[4];
+        new DealGenerator(new java.util.SplittableRandom(4)).next(hands);
+
+        TranspositionTable table = new TranspositionTable(256);
+        SingleDummy analysis = new SingleDummy(hands[Rules.SOUTH], hands[Rules.NORTH], Rules.SOUTH, 1, table);
+        analysis.analyze(Rules.NOTRUMP, SingleDummy.MIN_SAMPLES, 0, Long.MAX_VALUE); // Warm up
+
+        int[] strains = {Rules.CLUBS, Rules.DIAMONDS, Rules.HEARTS, Rules.SPADES, Rules.NOTRUMP};
+        for (SingleDummy.Result r : analysis.analyze(strains, count, 0.1, 60_000)) {
+            System.out.println(r);
+        }
+    }
+}
@@ -1,8 +1,5 @@
 package bridge;
 
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
-
 public class Bid extends Call implements Comparable<Bid> {
     private int rank;
     private int strain;
@@ -39,32 +36,13 @@ public class Bid extends Call implements Comparable<Bid> {
      *                                bid
      */
     public Bid(String bidStr) {
-        bidStr = bidStr.toLowerCase(); // The conversion is case-insensitive
-
-        // Split the string into two parts
-        Matcher bidMatch = Pattern.compile("^(?<rank>[1-7])(?<strain>[CcDdHhSs]|[Nn][Tt]?)$").matcher(bidStr);
-        if (!bidMatch.matches()) { // Validate the input
+        int code = Notation.call(bidStr);
+        if (!Call.isBid(code)) { // Validate the input
             throw new MalformedCallException(bidStr);
         }
 
-        String rankStr = bidMatch.group("rank");
-        String strainStr = bidMatch.group("strain");
-
-        // Convert the strings entered to chars
-        char r = rankStr.charAt(0);
-        char s = strainStr.charAt(0);
-
-        int rank = (int)r - 48; // Convert char digit to integer to get the rank
-
-        int strain;
-        if (s == 'c')      { strain = Rules.CLUBS; }
-        else if (s == 'd') { strain = Rules.DIAMONDS; }
-        else if (s == 'h') { strain = Rules.HEARTS; }
-        else if (s == 's') { strain = Rules.SPADES; }
-        else               { strain = Rules.NOTRUMP; }
-
-        this.rank = rank;
-        this.strain = strain;
+        this.rank = Notation.rank(code);
+        this.strain = Notation.strain(code);
     }
 
     /**
@@ -83,6 +61,13 @@ public class Bid extends Call implements Comparable<Bid> {
      */
     public int strain() { return this.strain; }
 
+    /**
+     * Get the code of the bid (see {@link Notation#bid}).
+     *
+     * @return 3-37, inclusive
+     */
+    public int code() { return Notation.bid(this.rank, this.strain); }
+
     /**
      * Find whether one bid is smaller, equal to, or greater than another.
      * A bid is smaller than another one if one of the following is satisfied:
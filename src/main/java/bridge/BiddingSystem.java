@@ -0,0 +1,219 @@
+package bridge;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A bidding system: for each auction so far, the calls to make and the
+ * hands to make them with.
+ *
+ * A system is written one rule per line, as the auction so far, the call,
+ * {@code =}, and a condition on the hand of the player to call:
+ * <pre>
+ * # Openings
+ * 1N = hcp(me) &gt;= 15 &amp;&amp; hcp(me) &lt;= 17 &amp;&amp; balanced(me)
+ * 1S = hcp(me) &gt;= 12 &amp;&amp; spades(me) &gt;= 5
+ * # Responses to 1NT
+ * 1N P 2C = hcp(me) &gt;= 8 &amp;&amp; (hearts(me) == 4 || spades(me) == 4)
+ * 1N P 3N = hcp(me) &gt;= 10
+ * </pre>
+ * Calls are written as in {@link Call#isCall(String)}, and conditions as in
+ * {@link DealScript} with the hand called {@code me}; a rule with no
+ * condition always applies. Passes before the first bid are left out of the
+ * auction, so the same openings apply in any seat. Of the rules for an
+ * auction, the first whose call is legal and whose condition holds is
+ * chosen, and if there is none, the player passes.
+ *
+ * When a system is loaded, its auctions are built into a trie with a node
+ * for each auction and an edge for each call, and every condition is
+ * compiled. Choosing a call is then one walk down the trie followed by the
+ * conditions of one node, which mostly look the hand up in the tables of
+ * {@link Evaluator}.
+ */
+public class BiddingSystem {
+    /**
+     * The names of the hands in conditions.
+     */
+    private static final String[] SEATS = {"me"};
+
+    /**
+     * The child of each node for each call, at {@code Notation.CALLS * node
+     * + code}, or 0 if there is none (the root, node 0, is nobody's
+     * child).
+     */
+    private final int[] children;
+
+    /**
+     * The rules of node {@code n} are those from {@code first[n]} to
+     * {@code first[n + 1]}, in the order they were written.
+     */
+    private final int[] first;
+    private final byte[] calls;
+    private final DealPredicate[] conditions;
+
+    private BiddingSystem(int[] children, int[] first, byte[] calls, DealPredicate[] conditions) {
+        this.children = children;
+        this.first = first;
+        this.calls = calls;
+        this.conditions = conditions;
+    }
+
+    /**
+     * Compile a system from its text.
+     *
+     * @param text the rules, one per line
+     * @return the system
+     * @throws IllegalArgumentException if a rule isn't valid, with its line
+     *                                  number
+     */
+    public static BiddingSystem parse(String text) { return BiddingSystem.parse(Arrays.asList(text.split("\r?\n"))); }
+
+    /**
+     * Compile a system from a file.
+     *
+     * @param file the file, with one rule per line
+     * @return the system
+     * @throws IOException if the file can't be read
+     * @throws IllegalArgumentException if a rule isn't valid, with its line
+     *                                  number
+     */
+    public static BiddingSystem load(Path file) throws IOException {
+        return BiddingSystem.parse(Files.readAllLines(file));
+    }
+
+    /**
+     * Compile a system from its rules.
+     *
+     * @param lines the rules, one per line
+     * @return the system
+     * @throws IllegalArgumentException if a rule isn't valid, with its line
+     *                                  number
+     */
+    public static BiddingSystem parse(List<String> lines) {
+        int[] children = new int[Notation.CALLS];
+        int nodes = 1;
+        List<int[]> rules = new ArrayList<int[]>(); // Each rule's node and call
+        List<DealPredicate> conditions = new ArrayList<DealPredicate>();
+
+        for (int line = 0; line < lines.size(); line++) {
+            String text = lines.get(line);
+            int comment = text.indexOf('#');
+            if (comment >= 0) { text = text.substring(0, comment); }
+            if (text.trim().isEmpty()) { continue; }
+
+            int equals = text.indexOf('=');
+            if (equals < 0) { throw BiddingSystem.error(line, "Expected '='"); }
+
+            byte[] auction;
+            DealPredicate condition;
+            try {
+                auction = Auction.parse(text.substring(0, equals));
+                String script = text.substring(equals + 1);
+                condition = script.trim().isEmpty() ? h -> true : DealScript.compile(script, SEATS);
+            }
+            catch (IllegalArgumentException | MalformedCallException e) {
+                throw BiddingSystem.error(line, e.getMessage());
+            }
+            if (auction.length == 0) { throw BiddingSystem.error(line, "Expected a call before '='"); }
+
+            // Find or add the node of the auction before the call
+            int node = 0, i = 0;
+            while (i < auction.length - 1 && auction[i] == Notation.PASS) { i++; }
+            for (; i < auction.length - 1; i++) {
+                int edge = Notation.CALLS * node + auction[i];
+                if (children[edge] == 0) {
+                    if (Notation.CALLS * (nodes + 1) > children.length) {
+                        children = Arrays.copyOf(children, 2 * children.length);
+                    }
+                    children[edge] = nodes++;
+                }
+                node = children[edge];
+            }
+
+            rules.add(new int[] {node, auction[auction.length - 1]});
+            conditions.add(condition);
+        }
+
+        // Group the rules by node, keeping the order within each
+        int[] first = new int[nodes + 1];
+        for (int[] rule : rules) { first[rule[0] + 1]++; }
+        for (int n = 0; n < nodes; n++) { first[n + 1] += first[n]; }
+
+        int[] next = Arrays.copyOf(first, nodes);
+        byte[] calls = new byte[rules.size()];
+        DealPredicate[] compiled = new DealPredicate[rules.size()];
+        for (int r = 0; r < rules.size(); r++) {
+            int at = next[rules.get(r)[0]]++;
+            calls[at] = (byte) rules.get(r)[1];
+            compiled[at] = conditions.get(r);
+        }
+
+        return new BiddingSystem(Arrays.copyOf(children, Notation.CALLS * nodes), first, calls, compiled);
+    }
+
+    private static IllegalArgumentException error(int line, String message) {
+        return new IllegalArgumentException("Line " + (line + 1) + ": " + message);
+    }
+
+    /**
+     * Choose a call.
+     *
+     * @param auction the code of each call so far (see {@link Auction})
+     * @param length the number of calls so far
+     * @param hand the hand of the player to call, as a bitboard
+     * @param legal the legal calls, as a mask with bit {@code code} set for
+     *              each (see {@link AuctionState#legal()})
+     * @param scratch an array of at least one hand, which is overwritten
+     * @return the code of the call, which is {@code Notation.PASS} if no
+     *         rule applies
+     */
+    public int choose(byte[] auction, int length, long hand, long legal, long[] scratch) {
+        int node = 0, i = 0;
+        while (i < length && auction[i] == Notation.PASS) { i++; }
+        for (; i < length; i++) {
+            node = this.children[Notation.CALLS * node + auction[i]];
+            if (node == 0) { return Notation.PASS; }
+        }
+
+        return this.choose(node, hand, legal, scratch);
+    }
+
+    /**
+     * Choose a call in a game.
+     *
+     * @param calls the calls so far
+     * @param hand the hand of the player to call, as a bitboard
+     * @param legal the legal calls, as a mask with bit {@code code} set for
+     *              each
+     * @param scratch an array of at least one hand, which is overwritten
+     * @return the code of the call, which is {@code Notation.PASS} if no
+     *         rule applies
+     */
+    public int choose(List<Call> calls, long hand, long legal, long[] scratch) {
+        int node = 0, i = 0;
+        while (i < calls.size() && calls.get(i).code() == Notation.PASS) { i++; }
+        for (; i < calls.size(); i++) {
+            node = this.children[Notation.CALLS * node + calls.get(i).code()];
+            if (node == 0) { return Notation.PASS; }
+        }
+
+        return this.choose(node, hand, legal, scratch);
+    }
+
+    /**
+     * Choose from the rules of a node.
+     */
+    private int choose(int node, long hand, long legal, long[] scratch) {
+        scratch[0] = hand;
+        for (int r = this.first[node]; r < this.first[node + 1]; r++) {
+            int call = this.calls[r];
+            if ((legal >>> call & 1) != 0 && this.conditions[r].test(scratch)) { return call; }
+        }
+
+        return Notation.PASS;
+    }
+}
@@ -1,28 +1,24 @@
 package bridge;
 
-import Deck;
-import hsa.Console;
+import bridge.hsa.Console;
 import java.util.List;
 import java.util.ArrayList;
 
-public class Bridge extends Console {
-    private Deck deck;
-
-    /**
-     * The four people playing the game.
-     */
-    private Player[] players;
-
+/**
+ * A view of a {@link Game} in a {@link Console} window. The four people at
+ * the table take turns at the keyboard; the window asks each of them for
+ * their calls and cards and shows them what they are allowed to see.
+ */
+public class Bridge extends Console implements Agent {
     /**
-     * The winners of previous tricks. If if the trick hasn't been played
-     * yet, the number should be -1.
+     * The cards dealt to the four seats, indexed by seat.
      */
-    private int[] results;
+    private long[] hands;
 
     /**
-     * The contract of the bridge game, as determined by the auction.
+     * The game being shown, which is {@code null} until the auction starts.
      */
-    private Contract contract;
+    private Game game;
 
     /**
      * Create a bridge game. The game has a standard 52-card deck dealt to 4
@@ -30,17 +26,12 @@ public class Bridge extends Console {
      */
     public Bridge() {
         super("Bridge");
-        this.deck = new Deck();
-        this.deck.shuffle();
+        Deck deck = new Deck();
+        deck.shuffle();
 
-        this.players = new Player[4];
+        this.hands = new long[4];
         for (int i = 0; i < 4; i++) {
-            this.players[i] = new Player(this.deck.deal(13)); // Initialize the players
-        }
-
-        this.results = new int[13]; // 13 tricks
-        for (int i = 0; i < 13; i++) {
-            this.results[i] = -1; // Fill the array with -1
+            this.hands[i] = deck.dealHand(13); // Deal the players
         }
     }
 
@@ -67,162 +58,137 @@ public class Bridge extends Console {
         this.print(prompt);
 
         Card c;
-        String s = "";
-        try {
-            s = this.readLine(); // Read the input
-            if (s.equals("?") || s.equals("h") || s.equals("H")) { // If the user asks for more information
-                Bridge.showCardHelp();
+        String s = this.readLine(); // Read the input
+        int index = Notation.card(s);
+        if (s.equals("?") || s.equals("h") || s.equals("H")) { // If the user asks for more information
+            Bridge.showCardHelp();
 
-                c = this.readCard(prompt); // Go back to the prompt
-            }
-            else {
-                c = new Card(s); // Try to convert it to a Card
-            }
-        } catch (MalformedCardException e) { // If the user entered a bad string
+            c = this.readCard(prompt); // Go back to the prompt
+        }
+        else if (index == Notation.INVALID) { // If the user entered a bad string
             this.print(s + " is not a valid card. "); // Print an error message
             c = this.readCard(prompt); // Try again
         }
+        else {
+            c = Card.of(index);
+        }
 
         return c;
     }
 
     /**
-     * Play a trick, retrieving a card from each player.
+     * Play a trick, retrieving a card from each player, starting with the
+     * player on lead.
      *
-     * @param leader the first player to go, one of Rules.NORTH, Rules.EAST,
-     *              Rules.SOUTH, and Rules.WEST
      * @return the player that won
      */
-    public int trick(int leader) {
-        // Setup
-        Card entered, lead = null; // lead == null indicates this is the first card of the trick
-        Card[] played = new Card[4];
-        int pos; // The position of the entered card in the current player's hand
-
-        if (leader == -1) {
-            leader = (this.contract.declarer() + 1) % 4;
+    public int trick() {
+        for (int i = 0; i < 4; i++) {
+            this.game.play(this.play(this.game, this.game.turn()));
         }
-        int dummy = (this.contract.declarer() + 2) % 4;
 
-        // Play the cards
-        for (int i = leader; i != (leader+4) % 4 || lead == null; i = (i+1) % 4) {
-            this.clear();
-            this.println("Press a key to start " + Rules.playerName(i) + "'s turn.");
-            this.getChar();
-            this.clear();
+        // Print the played cards
+        this.clear();
+        this.println("North: " + this.game.previous(Rules.NORTH));
+        this.println("East: " + this.game.previous(Rules.EAST));
+        this.println("South: " + this.game.previous(Rules.SOUTH));
+        this.println("West: " + this.game.previous(Rules.WEST));
+        this.getChar();
 
-            // Print the cards played so far
-            for (int j = Rules.NORTH; j <= Rules.WEST; j++) {
-                if (j == i) { this.setTextColour(java.awt.Color.RED); } // Highlight the current player
+        return this.game.leader(); // The winner leads next
+    }
 
-                this.print(Rules.playerName(j) + ": ");
+    /**
+     * Ask the person at the keyboard for a card, showing them the trick so
+     * far and the hands they can see.
+     *
+     * @param game the game being played
+     * @param i the seat to play for
+     * @return a legal card
+     */
+    public Card play(Game game, int i) {
+        int leader = game.leader();
+        int dummy = game.dummy();
+        Contract contract = game.contract();
 
-                this.println(played[j] != null ? played[j].toString() : ""); // Don't print null
-                this.setTextColour(java.awt.Color.BLACK);
-            }
-            this.println();
+        this.clear();
+        this.println("Press a key to start " + Rules.playerName(i) + "'s turn.");
+        this.getChar();
+        this.clear();
 
-            // Print the contract
-            this.println(this.contract.toString());
+        // Print the cards played so far
+        for (int j = Rules.NORTH; j <= Rules.WEST; j++) {
+            if (j == i) { this.setTextColour(java.awt.Color.RED); } // Highlight the current player
 
-            // Print the results thus far
-            for (int r : this.results) {
-                if (r == -1) { continue; } // Skip -1
-                if (r % 2 == i % 2) { this.print("|"); } // If either this player or their partner won, display a |
-                else { this.print("-"); } // Otherwise display a -
-            }
-            this.println();
+            this.print(Rules.playerName(j) + ": ");
 
-            // Display cards
-            if (i != dummy) {
-                this.println("Your hand: ");
-                this.show(this.players[i].hand(), 15 * this.getRow());
+            this.println(game.played(j) != null ? game.played(j).toString() : ""); // Don't print null
+            this.setTextColour(java.awt.Color.BLACK);
+        }
+        this.println();
 
-                if (!(i == leader && this.results[0] == -1)) {
-                    this.setCursor(this.getRow() + 6, 1); // Move to the row below the cards
-                    this.println("Dummy's hand: ");
-                    this.show(this.players[dummy].hand(), 15 * (this.getRow() + 1));
-                }
-            }
-            else {
-                this.println("Dummy's hand: ");
-                this.show(this.players[dummy].hand(), 15 * this.getRow());
+        // Print the contract
+        this.println(contract.toString());
 
-                this.setCursor(this.getRow() + 6, 1); // Move to the row below the cards
-                this.println("Declarer's hand: ");
-                this.show(this.players[this.contract.declarer()].hand(), 15 * (this.getRow() + 1));
-            }
+        // Print the results thus far
+        for (int r : game.results()) {
+            if (r == -1) { continue; } // Skip -1
+            if (r % 2 == i % 2) { this.print("|"); } // If either this player or their partner won, display a |
+            else { this.print("-"); } // Otherwise display a -
+        }
+        this.println();
 
-            this.setCursor(this.getRow() + 6, 1);
-            entered = this.readCard("Enter a card (or ? for help): ");
-            pos = this.players[i].find(entered);
+        // Display cards
+        if (i != dummy) {
+            this.println("Your hand: ");
+            this.show(game.player(i).hand(), 15 * this.getRow());
 
-            // Validate card
-            for ( ; !Rules.playable(entered, this.players[i], lead); pos = this.players[i].find(entered)) {
-                this.setCursor(this.getRow() - 1, 1); // Print over the current row
-                this.print(entered.toString() + " can't be played. ");
-                entered = this.readCard("Enter a card  (or ? for help): ");
+            if (!(i == leader && game.tricks() == 0)) {
+                this.setCursor(this.getRow() + 6, 1); // Move to the row below the cards
+                this.println("Dummy's hand: ");
+                this.show(game.player(dummy).hand(), 15 * (this.getRow() + 1));
             }
+        }
+        else {
+            this.println("Dummy's hand: ");
+            this.show(game.player(dummy).hand(), 15 * this.getRow());
 
-            played[i] = this.players[i].playCard(pos);
-
-            if (lead == null) { lead = entered; }
+            this.setCursor(this.getRow() + 6, 1); // Move to the row below the cards
+            this.println("Declarer's hand: ");
+            this.show(game.player(contract.declarer()).hand(), 15 * (this.getRow() + 1));
         }
 
-        int winner = this.winner(played, leader); // Determine the winner of the trick
+        this.setCursor(this.getRow() + 6, 1);
+        Card entered = this.readCard("Enter a card (or ? for help): ");
 
-        // Print the played cards
-        this.clear();
-        this.println("North: " + played[Rules.NORTH]);
-        this.println("East: " + played[Rules.EAST]);
-        this.println("South: " + played[Rules.SOUTH]);
-        this.println("West: " + played[Rules.WEST]);
-        this.getChar();
+        // Validate card
+        while (!game.isLegal(entered)) {
+            this.setCursor(this.getRow() - 1, 1); // Print over the current row
+            this.print(entered.toString() + " can't be played. ");
+            entered = this.readCard("Enter a card  (or ? for help): ");
+        }
 
-        return winner;
+        return entered;
     }
 
     /**
-     * Determine the winner.
-     * The highest card wins. To compare to cards:
-     * - If both cards follow suit with the leader, the higher rank wins.
-     * - Otherwise the higher trump wins.
-     *
-     * Because the initial highest card is the lead, the highest card will
-     * always follow suit or be trump.
+     * Determine the winner of a trick in the contract's strain (see
+     * {@link Tricks}).
      *
      * @param played the four cards played this trick
      * @param leader the person who played the first card of the trick
+     * @return the player that won
      */
     public int winner(Card[] played, int leader) {
-        Card lead = played[leader];
-        int winner = 0;
-
-        for (int i = 0; i < 4; i++) {
-            if (played[i].suit() == played[winner].suit()) {
-                if (played[i].rank() > played[winner].rank()) { winner = i; }
-            }
-            else if (played[i].suit() == this.contract.strain()) { winner = i; }
-        }
-
-        return winner;
+        return Game.winner(played, leader, this.game.contract().strain());
     }
 
-    /**
-     * Save the result of a trick.
-     *
-     * @param trickNum the zero-indexed number of the trick (i. e. the first
-     *                 trick is trick 0)
-     * @param r the winner of the trick
-     */
-    public void setResult(int trickNum, int r) { this.results[trickNum] = r % 2; }
-
     /**
      * Get the results of the game.
      *
-     * @return the winners of each trick
+     * @return the side that won each trick, or -1 for tricks not played
      */
-    public int[] getResults() { return this.results; }
+    public int[] getResults() { return this.game.results(); }
 
     /**
      * Show help for card entry in a new window.
@@ -254,64 +220,56 @@ public class Bridge extends Console {
     }
 
     /**
-     * Determine the contract.
+     * Determine the contract, with every call made at the keyboard.
      *
      * @param dealer the first person to bid
      */
-    public void auction(int dealer) {
-        Call entered;
-        List<Call> calls = new ArrayList<Call>(); // null -> pass
-        Bid lastBid = null;
-        int dblLevel = Rules.UNDOUBLED;
-        int side = 0;
-
-        for (int i = dealer; calls.size() < 4 || !Bridge.auctionFinished(calls); i = (i+1) % 4) {
-            this.clear();
-            this.println("Press a key to start " + Rules.playerName(i) + "'s turn.");
-            this.getChar();
-            this.clear();
-
-            // Display previous bids
-            this.showAuction(calls, i, dealer);
-
-            // Display the hand
-            this.show(this.players[i].hand(), 20 * this.getRow() + 10);
-            //this.println();
-
-            boolean valid = false;
-            while (!valid) {
-                entered = this.readCall("Enter a call (or ? for help): ");
-                valid = true; // Assume the entry was legal until proven otherwise
-                if (entered instanceof Bid && (lastBid == null || ((Bid) entered).compareTo(lastBid) > 0)) { // Bids
-                    calls.add(entered);
-                    lastBid = (Bid) entered;
-                    dblLevel = Rules.UNDOUBLED;
-                    side = i % 2;
-                }
-                else if (entered instanceof Double && lastBid != null &&
-                         (((Double) entered).level() == Rules.DOUBLE && dblLevel == Rules.UNDOUBLED ||
-                         ((Double) entered).level() == Rules.REDOUBLE && dblLevel == Rules.DOUBLE)) { // Doubles
-                    dblLevel = ((Double) entered).level();
-                    calls.add(entered);
-                }
-                else if (entered == null) { // Pass
-                    calls.add(entered);
-                }
-                else {
-                    this.setCursor(this.getRow() - 1, 1);
-                    this.print("Illegal call. ");
-                    valid = false;
-                }
-            }
-        }
+    public void auction(int dealer) { this.auction(dealer, new Agent[] {this, this, this, this}); }
+
+    /**
+     * Determine the contract, with some seats called for by other agents,
+     * such as a {@link SystemAgent}.
+     *
+     * @param dealer the first person to bid
+     * @param agents the agent of each seat, indexed by seat, which is this
+     *               view for the seats at the keyboard
+     */
+    public void auction(int dealer, Agent[] agents) {
+        this.game = new Game(this.hands, dealer);
 
-        if (lastBid != null) {
-            int declarer = Rules.declarer(calls, side, lastBid.strain(), dealer);
-            this.contract = new Contract(lastBid, dblLevel, declarer);
+        while (this.game.phase() == Game.AUCTION) {
+            this.game.call(agents[this.game.turn()].call(this.game, this.game.turn()));
         }
-        else {
-            this.contract = null;
+    }
+
+    /**
+     * Ask the person at the keyboard for a call, showing them the auction so
+     * far and their hand.
+     *
+     * @param game the game being played
+     * @param i the seat to call for
+     * @return a legal call
+     */
+    public Call call(Game game, int i) {
+        this.clear();
+        this.println("Press a key to start " + Rules.playerName(i) + "'s turn.");
+        this.getChar();
+        this.clear();
+
+        // Display previous bids
+        this.showAuction(game.calls(), i, game.dealer());
+
+        // Display the hand
+        this.show(game.player(i).hand(), 20 * this.getRow() + 10);
+
+        Call entered = this.readCall("Enter a call (or ? for help): ");
+        while (!game.isLegal(entered)) {
+            this.setCursor(this.getRow() - 1, 1);
+            this.print("Illegal call. ");
+            entered = this.readCall("Enter a call (or ? for help): ");
         }
+
+        return entered;
     }
 
     /**
@@ -368,12 +326,7 @@ public class Bridge extends Console {
         }
         for (int i = 0; i < calls.size(); i++) {
             this.print(" ");
-            if (calls.get(i) != null) {
-                this.print(calls.get(i).toString(), 6);
-            }
-            else {
-                this.print("P", 6);
-            }
+            this.print(calls.get(i).toString(), 6);
 
             this.print((i + dealer) % 4 != 3 ? "|" : "\n");
         }
@@ -389,7 +342,8 @@ public class Bridge extends Console {
     public Call readCall(String prompt) {
         this.print(prompt);
         String s = this.readLine();
-        while (!Call.isCall(s)) { // While the call is invalid
+        int code = Notation.call(s);
+        while (code == Notation.INVALID) { // While the call is invalid
             this.setCursor(this.getRow() - 1, 1); // Move back to the start of the current row
 
             if (s.equals("?") || s.equals("h") || s.equals("H")) { Bridge.showCallHelp(); }
@@ -398,20 +352,10 @@ public class Bridge extends Console {
             // Read it again
             this.print(prompt);
             s = this.readLine();
+            code = Notation.call(s);
         }
 
-        Call out;
-        if (Call.isBid(s)) {
-            out = new Bid(s);
-        }
-        else if (Call.isDouble(s)) {
-            out = new Double(s);
-        }
-        else {
-            out = null;
-        }
-
-        return out;
+        return Call.of(code);
     }
 
     /**
@@ -421,25 +365,20 @@ public class Bridge extends Console {
      * @param calls the history of the auction
      * @return whether or not the auction is done
      */
-    public static boolean auctionFinished(List<Call> calls) {
-        return calls.get(calls.size() - 1) == null &&
-               calls.get(calls.size() - 2) == null &&
-               calls.get(calls.size() - 3) == null;
-    }
+    public static boolean auctionFinished(List<Call> calls) { return Game.auctionFinished(calls); }
 
     /**
      * Get the contract for this hand.
      *
      * @return the contract
      */
-    public Contract getContract() { return this.contract; }
+    public Contract getContract() { return this.game.contract(); }
 
     public static void main(String[] args) {
         Bridge game = new Bridge();
 
         char choice = 'y';
         List<Integer> scores = new ArrayList<Integer>();
-        int leader = -1;
         while (choice == 'y') {
             // Determine the contract
             game.auction((int) (Math.random() * 4));
@@ -447,8 +386,7 @@ public class Bridge extends Console {
             // Play the hand
             if (game.getContract() != null) {
                 for (int i = 0; i < 13; i++) {
-                    leader = game.trick(leader);
-                    game.setResult(i, leader % 2);
+                    game.trick();
                 }
             }
 
@@ -1,17 +1,87 @@
 package bridge;
 
-import java.util.regex.Pattern;
-
 public abstract class Call {
+    /**
+     * The canonical instances of the 38 calls, indexed by code (see
+     * {@link Notation}).
+     */
+    private static final Call[] CALLS = new Call[Notation.CALLS];
+
+    /**
+     * The one pass.
+     */
+    public static final Call PASS = new Pass();
+
+    static {
+        CALLS[Notation.PASS] = PASS;
+        CALLS[Notation.DOUBLE] = new Double(Rules.DOUBLE);
+        CALLS[Notation.REDOUBLE] = new Double(Rules.REDOUBLE);
+        for (int code = Notation.FIRST_BID; code < Notation.CALLS; code++) {
+            CALLS[code] = new Bid(Notation.rank(code), Notation.strain(code));
+        }
+    }
+
+    /**
+     * Get the canonical instance of a call. Nothing is allocated.
+     *
+     * @param code 0-37, inclusive (see {@link Notation})
+     * @return the shared {@code Call} with that code
+     */
+    public static Call of(int code) { return CALLS[code]; }
+
+    /**
+     * Get the canonical instance of a call from a string, accepted by the
+     * rules of {@link #isCall(String)}.
+     *
+     * @param callStr a string representing the call
+     * @return the shared {@code Call}
+     * @throws MalformedCallException if the passed string doesn't represent a
+     *                                call
+     */
+    public static Call parse(CharSequence callStr) {
+        int code = Notation.call(callStr);
+        if (code == Notation.INVALID) {
+            throw new MalformedCallException(callStr.toString());
+        }
+
+        return CALLS[code];
+    }
 
     /**
-     * Check if a string is a valid call.
+     * Get the code of the call: {@code Notation.PASS},
+     * {@code Notation.DOUBLE}, {@code Notation.REDOUBLE}, or the code of a
+     * bid.
+     *
+     * @return 0-37, inclusive
+     */
+    public abstract int code();
+
+    /**
+     * Get the canonical instance of this call.
+     *
+     * @return the shared {@code Call} with the same code
+     */
+    public Call canonical() { return CALLS[this.code()]; }
+
+    public boolean equals(Object o) {
+        return o instanceof Call && ((Call) o).code() == this.code();
+    }
+
+    public int hashCode() { return this.code(); }
+
+    /**
+     * Check if a string is a valid call. A call is one of:
+     * - P (pass)
+     * - X (double) or XX (redouble)
+     * - a bid, as accepted by {@link Bid#Bid(String)}
+     * The string is parsed case-insensitively.
      *
      * @param s the string to check
      * @return if the string is a valid (but not necessarily legal) call.
+     * @see Notation#call(CharSequence)
      */
     public static boolean isCall(String s) {
-        return Pattern.matches("^[Pp]|[Xx][Xx]?|[1-7](?:[CcDdHhSs]|[Nn][Tt]?)$", s);
+        return Notation.call(s) != Notation.INVALID;
     }
 
     /**
@@ -21,7 +91,7 @@ public abstract class Call {
      * @return if the string is a valid (but not necessarily legal) bid.
      */
     public static boolean isBid(String s) {
-        return Pattern.matches("^[1-7](?:[CcDdHhSs]|[Nn][Tt]?)$", s);
+        return Call.isBid(Notation.call(s));
     }
 
     /**
@@ -31,6 +101,26 @@ public abstract class Call {
      * @return if the string is a valid (but not necessarily legal) double.
      */
     public static boolean isDouble(String s) {
-        return Pattern.matches("^[Xx][Xx]?$", s);
+        return Call.isDouble(Notation.call(s));
+    }
+
+    /**
+     * Check if a parsed call is a bid.
+     *
+     * @param code a code returned by {@link Notation#call(CharSequence)}
+     * @return if the code is a bid
+     */
+    public static boolean isBid(int code) {
+        return code >= Notation.FIRST_BID;
+    }
+
+    /**
+     * Check if a parsed call is a double or a redouble.
+     *
+     * @param code a code returned by {@link Notation#call(CharSequence)}
+     * @return if the code is a double or a redouble
+     */
+    public static boolean isDouble(int code) {
+        return code == Notation.DOUBLE || code == Notation.REDOUBLE;
     }
 }
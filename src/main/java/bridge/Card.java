@@ -1,25 +1,41 @@
 package bridge;
 
 import java.awt.Image;
-import java.io.File;
-import java.util.regex.Pattern;
-import java.util.regex.Matcher;
 
 public class Card implements Comparable<Card> {
+    /**
+     * The canonical instances of the 52 cards, in the order of
+     * {@link #compareTo}. The card at position {@code i} has index {@code i}.
+     */
+    private static final Card[] CARDS = new Card[52];
+
+    /**
+     * The artwork of each card, shared by every instance with the same index.
+     * An entry is only decoded the first time it is displayed.
+     */
+    private static final Image[] IMAGES = new Image[52];
+
+    static {
+        for (int s = Rules.CLUBS; s <= Rules.SPADES; s++) {
+            for (int r = 2; r <= Rules.ACE; r++) {
+                Card c = new Card(r, s);
+                CARDS[c.index()] = c;
+            }
+        }
+    }
+
     /**
      * The rank of the card.
      *
-     * Must be in 2 - 12, inclusive.
+     * Must be in 2 - 14, inclusive.
      */
-    private int rank;
+    private final int rank;
     /**
      * The suit of the card.
      *
      * Must be one of: 0 (clubs), 1 (diamonds), 2 (hearts), or 3 (spades).
      */
-    private int suit;
-
-    private Image img;
+    private final int suit;
 
     /**
      * Creates the default card (ace of spades).
@@ -40,47 +56,13 @@ public class Card implements Comparable<Card> {
      *                                card
      */
     public Card(String cardStr) {
-        cardStr = cardStr.toLowerCase(); // The conversion is case-insensitive
-
-        // Split the string into two parts
-        Matcher cardMatch = Pattern.compile("^(?<rank>[2-9]|10|[TtJjQqKkAa])(?<suit>[CcDdHhSs])$").matcher(cardStr);
-        if (!cardMatch.matches()) { // Validate the input
+        int index = Notation.card(cardStr);
+        if (index == Notation.INVALID) { // Validate the input
             throw new MalformedCardException(cardStr);
         }
 
-        String rankStr = cardMatch.group("rank");
-        String suitStr = cardMatch.group("suit");
-
-        // Convert the strings entered to chars
-        char r; // Two options for r: 2-9/t or 10, the latter case is equivalent to t
-        if (rankStr.length() == 1) { r = rankStr.charAt(0); }
-        else { r = 't'; }
-
-        char s = suitStr.charAt(0);
-
-        if (r >= '2' && r <= '9') { rank = (int)r - 48; } // Convert char digit to integer to get the rank
-        else if (r == 't')        { rank = Rules.TEN; }
-        else if (r == 'j')        { rank = Rules.JACK; }
-        else if (r == 'q')        { rank = Rules.QUEEN; }
-        else if (r == 'k')        { rank = Rules.KING; }
-        else if (r == 'a')        { rank = Rules.ACE; }
-
-        if (s == 'c')      { suit = Rules.CLUBS; }
-        else if (s == 'd') { suit = Rules.DIAMONDS; }
-        else if (s == 'h') { suit = Rules.HEARTS; }
-        else if (s == 's') { suit = Rules.SPADES; }
-
-        this.rank = rank;
-        this.suit = suit;
-
-        String fName = "images/"+  this.toString().toLowerCase() + ".gif";
-        try {
-        	this.img = javax.imageio.ImageIO.read(getClass().getResource(fName));
-            //this.img = javax.imageio.ImageIO.read(new File(fName));
-        }
-        catch (java.io.IOException ioe) {
-            System.out.println(fName + " not found.");
-        }
+        this.rank = index % 13 + 2;
+        this.suit = index / 13;
     }
 
     /**
@@ -92,17 +74,53 @@ public class Card implements Comparable<Card> {
     public Card(int rank, int suit) {
         this.rank = rank;
         this.suit = suit;
+    }
 
-        String fName = "images/" + this.toString().toLowerCase() + ".gif";
-        try {
-        	this.img = javax.imageio.ImageIO.read(getClass().getResource(fName));
-            //this.img = javax.imageio.ImageIO.read(new File(fName));
-        }
-        catch (java.io.IOException ioe) {
-            System.out.println(fName + " not found.");
+    /**
+     * Get the canonical instance of a card. No image is read and nothing is
+     * allocated.
+     *
+     * @param rank the rank of the card, an integer between 2 and 14, inclusive
+     * @param suit the suit of the card, an integer between 0 and 3, inclusive
+     * @return the shared {@code Card} with that rank and suit
+     */
+    public static Card of(int rank, int suit) { return CARDS[suit * 13 + rank - 2]; }
+
+    /**
+     * Get the canonical instance of a card from its index.
+     *
+     * @param index 0-51, inclusive (see {@link #index()})
+     * @return the shared {@code Card} with that index
+     */
+    public static Card of(int index) { return CARDS[index]; }
+
+    /**
+     * Get the canonical instance of a card from a string, accepted by the
+     * rules of {@link #Card(String)}.
+     *
+     * @param cardStr a string representing the card
+     * @return the shared {@code Card}
+     * @throws MalformedCardException if the passed string doesn't represent a
+     *                                card
+     * @see Notation#card(CharSequence)
+     */
+    public static Card parse(CharSequence cardStr) {
+        int index = Notation.card(cardStr);
+        if (index == Notation.INVALID) {
+            throw new MalformedCardException(cardStr.toString());
         }
+
+        return CARDS[index];
     }
 
+    /**
+     * Get the position of the card in the order of {@link #compareTo}: the
+     * two of clubs is 0 and the ace of spades is 51.
+     *
+     * @return 0-51, inclusive
+     */
+    public int index() { return this.suit * 13 + this.rank - 2; }
+
     /**
      * Accessor for the rank of the card.
      *
@@ -159,6 +177,12 @@ public class Card implements Comparable<Card> {
         return c.rank() == this.rank && c.suit() == this.suit;
     }
 
+    public boolean equals(Object o) {
+        return o instanceof Card && this.equals((Card) o);
+    }
+
+    public int hashCode() { return this.index(); }
+
     /**
      * Find whether one card is smaller, equal to, or greater than another.
      * A card is smaller than another one if one of the following is satisfied:
@@ -180,5 +204,25 @@ public class Card implements Comparable<Card> {
         return result;
     }
 
-    public Image getImage() { return this.img; }
+    /**
+     * Get the artwork for the card. The image is decoded the first time any
+     * card with this rank and suit is displayed, and shared afterwards.
+     *
+     * @return the image, or {@code null} if it couldn't be read
+     */
+    public Image getImage() { return Card.image(this.index()); }
+
+    private static synchronized Image image(int index) {
+        if (IMAGES[index] == null) {
+            String fName = "images/" + CARDS[index].toString().toLowerCase() + ".gif";
+            try {
+                IMAGES[index] = javax.imageio.ImageIO.read(Card.class.getResource(fName));
+            }
+            catch (java.io.IOException ioe) {
+                System.out.println(fName + " not found.");
+            }
+        }
+
+        return IMAGES[index];
+    }
 }
@@ -0,0 +1,425 @@
+package bridge;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.random.RandomGenerator;
+import java.util.stream.IntStream;
+
+/**
+ * Generates random deals that meet constraints on each seat: a range of
+ * high-card points, a range of lengths in each suit, and cards dealt to it in
+ * advance. Every deal meeting the constraints is equally likely.
+ *
+ * Instead of dealing whole deals and throwing away the misses, the dealer
+ * deals the shape first. Before the first deal it lists every combination of
+ * suit lengths for the seats with length constraints, each weighted by the
+ * number of deals that have it. Each deal then picks a combination from the
+ * weights with one binary search, deals every suit to match it, and gives
+ * the cards left over to the other seats at random. Only the point ranges
+ * are checked afterwards, and a miss starts again from a new shape, so the
+ * deals stay uniform.
+ *
+ * The constraints are set with the setters and then fixed by the first
+ * deal, after which a dealer is safe to share between threads.
+ */
+public class ConstrainedDealer {
+    /**
+     * The number of deals generated from each split stream.
+     */
+    public static final int BLOCK = 1 << 10;
+
+    /**
+     * The most shapes tried for one deal before the points are given up as
+     * impossible.
+     */
+    private static final int MAX_TRIES = 1 << 24;
+
+    private final int[] minHcp = {0, 0, 0, 0};
+    private final int[] maxHcp = {37, 37, 37, 37};
+
+    /**
+     * The range of lengths of each seat in each suit, indexed by
+     * {@code 4 * seat + suit}.
+     */
+    private final int[] minLength = new int[16];
+    private final int[] maxLength = new int[16];
+
+    /**
+     * The cards given to each seat before dealing.
+     */
+    private final long[] predealt = new long[4];
+
+    /**
+     * Whether each seat must have a balanced hand (see {@link Hand#isBalanced}).
+     */
+    private final boolean[] balanced = new boolean[4];
+
+    /**
+     * The seats with length constraints, which are dealt shape-first.
+     */
+    private int[] shaped;
+
+    /**
+     * The suit lengths of the shaped seats in each combination, 4 bits per
+     * length, 16 bits per seat in the order of {@link #shaped}.
+     */
+    private long[] shapes;
+
+    /**
+     * The running total of the weights of the combinations, ending at 1.
+     */
+    private double[] cdf;
+
+    /**
+     * The cards of each suit that weren't predealt, as card indices.
+     */
+    private byte[][] free;
+
+    /**
+     * Create a dealer with no constraints.
+     */
+    public ConstrainedDealer() {
+        Arrays.fill(this.maxLength, 13);
+    }
+
+    /**
+     * Limit the high-card points (see {@link Hand#hcp}) of a seat.
+     *
+     * @param seat {@code Rules.NORTH} to {@code Rules.WEST}
+     * @param min the fewest points
+     * @param max the most points
+     */
+    public void hcp(int seat, int min, int max) {
+        this.checkOpen();
+        this.minHcp[seat] = min;
+        this.maxHcp[seat] = max;
+    }
+
+    /**
+     * Limit the length of a seat in a suit.
+     *
+     * @param seat {@code Rules.NORTH} to {@code Rules.WEST}
+     * @param suit {@code Rules.CLUBS} to {@code Rules.SPADES}
+     * @param min the fewest cards
+     * @param max the most cards
+     */
+    public void length(int seat, int suit, int min, int max) {
+        this.checkOpen();
+        this.minLength[4 * seat + suit] = min;
+        this.maxLength[4 * seat + suit] = max;
+    }
+
+    /**
+     * Limit a seat to a balanced hand: 4-3-3-3, 4-4-3-2 or 5-3-3-2.
+     *
+     * @param seat {@code Rules.NORTH} to {@code Rules.WEST}
+     */
+    public void balanced(int seat) {
+        this.checkOpen();
+        for (int s = Rules.CLUBS; s <= Rules.SPADES; s++) { // Keep any tighter limits already set
+            this.minLength[4 * seat + s] = Math.max(this.minLength[4 * seat + s], 2);
+            this.maxLength[4 * seat + s] = Math.min(this.maxLength[4 * seat + s], 5);
+        }
+        this.balanced[seat] = true; // Excludes 5-4-2-2, which 2-5 in each suit allows
+    }
+
+    /**
+     * Give cards to a seat before dealing.
+     *
+     * @param seat {@code Rules.NORTH} to {@code Rules.WEST}
+     * @param cards the cards, as a bitboard (see {@link Hand}), which no
+     *              other seat may have been given
+     */
+    public void predeal(int seat, long cards) {
+        this.checkOpen();
+        long others = 0;
+        for (int s = Rules.NORTH; s <= Rules.WEST; s++) {
+            if (s != seat) { others |= this.predealt[s]; }
+        }
+        if ((cards & others) != 0 || Hand.size(this.predealt[seat] | cards) > 13) {
+            throw new IllegalArgumentException("Cards can't be predealt twice or more than 13 to a seat.");
+        }
+
+        this.predealt[seat] |= cards;
+    }
+
+    /**
+     * Get the number of shape combinations the dealer chooses from.
+     *
+     * @return the number of combinations
+     */
+    public int shapes() {
+        this.prepare();
+
+        return this.shapes.length;
+    }
+
+    /**
+     * Generate one deal.
+     *
+     * @param random the source of randomness
+     * @param hands the array to fill with the hands, indexed by seat
+     * @throws IllegalStateException if no deal meets the constraints
+     */
+    public void next(RandomGenerator random, long[] hands) {
+        this.prepare();
+        this.next(random, hands, new byte[52]);
+    }
+
+    /**
+     * Generate packed deals (see {@link Deal}) in parallel. Every block of
+     * {@link #BLOCK} deals has its own stream split from the seed, so the
+     * deals depend only on the seed.
+     *
+     * @param seed the seed that determines every deal
+     * @param count the number of deals
+     * @return {@code count * Deal.BYTES} bytes of packed deals
+     * @throws IllegalStateException if no deal meets the constraints
+     */
+    public byte[] generate(long seed, int count) {
+        this.prepare();
+        byte[] out = new byte[Math.multiplyExact(count, Deal.BYTES)];
+
+        SplittableRandom root = new SplittableRandom(seed);
+        RandomGenerator[] streams = new RandomGenerator[(count + BLOCK - 1) / BLOCK];
+        for (int b = 0; b < streams.length; b++) { streams[b] = root.split(); }
+
+        IntStream.range(0, streams.length).parallel().forEach(b -> {
+            long[] hands = new long[4];
+            byte[] scratch = new byte[52];
+            for (int i = b * BLOCK; i < Math.min(count, (b + 1) * BLOCK); i++) {
+                this.next(streams[b], hands, scratch);
+                Deal.pack(hands, out, i * Deal.BYTES);
+            }
+        });
+
+        return out;
+    }
+
+    /**
+     * Deal until the points match, with a new shape every time.
+     */
+    private void next(RandomGenerator random, long[] hands, byte[] scratch) {
+        for (int tries = 0; tries < MAX_TRIES; tries++) {
+            int i = Arrays.binarySearch(this.cdf, random.nextDouble());
+            this.deal(this.shapes[i >= 0 ? i + 1 : -i - 1], random, hands, scratch);
+
+            boolean hit = true;
+            for (int seat = Rules.NORTH; seat <= Rules.WEST && hit; seat++) {
+                int hcp = Hand.hcp(hands[seat]);
+                hit = hcp >= this.minHcp[seat] && hcp <= this.maxHcp[seat];
+            }
+            if (hit) { return; }
+        }
+
+        throw new IllegalStateException("No deal found that meets the constraints.");
+    }
+
+    /**
+     * Deal the free cards to match a shape combination.
+     */
+    private void deal(long shape, RandomGenerator random, long[] hands, byte[] scratch) {
+        System.arraycopy(this.predealt, 0, hands, 0, 4);
+
+        // Each suit's cards go to the shaped seats first, the rest to a pool
+        int pooled = 0;
+        for (int s = Rules.CLUBS; s <= Rules.SPADES; s++) {
+            byte[] cards = this.free[s];
+            int n = cards.length;
+            System.arraycopy(cards, 0, scratch, pooled, n);
+
+            int pos = pooled;
+            for (int k = 0; k < this.shaped.length; k++) {
+                int seat = this.shaped[k];
+                int need = (int) (shape >>> (16 * k + 4 * s) & 0xF) - Hand.length(this.predealt[seat], s);
+                pos = ConstrainedDealer.take(scratch, pos, pooled + n, need, random, hands, seat);
+            }
+
+            // Move the leftovers to the end of the pool
+            int left = pooled + n - pos;
+            System.arraycopy(scratch, pos, scratch, pooled, left);
+            pooled += left;
+        }
+
+        // The other seats share the pool at random
+        int pos = 0;
+        for (int seat = Rules.NORTH; seat <= Rules.WEST; seat++) {
+            if (Hand.size(hands[seat]) < 13 && !this.isShaped(seat)) {
+                pos = ConstrainedDealer.take(scratch, pos, pooled, 13 - Hand.size(hands[seat]), random, hands, seat);
+            }
+        }
+    }
+
+    /**
+     * Move randomly chosen cards from {@code cards[pos..end)} to a hand, by
+     * swapping them to the front of the range.
+     *
+     * @return the new start of the range
+     */
+    private static int take(byte[] cards, int pos, int end, int count, RandomGenerator random, long[] hands, int seat) {
+        for (int i = 0; i < count; i++, pos++) {
+            int j = pos + random.nextInt(end - pos);
+            byte c = cards[j];
+            cards[j] = cards[pos];
+            cards[pos] = c;
+            hands[seat] |= 1L << c;
+        }
+
+        return pos;
+    }
+
+    private boolean isShaped(int seat) {
+        for (int s : this.shaped) {
+            if (s == seat) { return true; }
+        }
+
+        return false;
+    }
+
+    /**
+     * List the shape combinations and their weights, the first time only.
+     */
+    private synchronized void prepare() {
+        if (this.cdf != null) { return; }
+
+        long all = this.predealt[0] | this.predealt[1] | this.predealt[2] | this.predealt[3];
+        this.free = new byte[4][];
+        for (int s = Rules.CLUBS; s <= Rules.SPADES; s++) {
+            long suit = Hand.suitMask(s) & ~all;
+            this.free[s] = new byte[Hand.size(suit)];
+            for (int i = 0; suit != 0; i++, suit &= suit - 1) { this.free[s][i] = (byte) Long.numberOfTrailingZeros(suit); }
+        }
+
+        int n = 0;
+        int[] shaped = new int[4];
+        for (int seat = Rules.NORTH; seat <= Rules.WEST; seat++) {
+            for (int s = Rules.CLUBS; s <= Rules.SPADES; s++) {
+                if (this.minLength[4 * seat + s] > 0 || this.maxLength[4 * seat + s] < 13) {
+                    shaped[n++] = seat;
+                    break;
+                }
+            }
+        }
+        this.shaped = Arrays.copyOf(shaped, n);
+
+        int[] rest = new int[4];
+        for (int s = Rules.CLUBS; s <= Rules.SPADES; s++) { rest[s] = this.free[s].length; }
+        Combinations found = new Combinations();
+        this.enumerate(0, rest, 0, 0, found);
+        if (found.size == 0) {
+            throw new IllegalStateException("No shape meets the length constraints.");
+        }
+
+        // Weight each combination by its number of deals, relative to the largest
+        double max = found.logWeights[0];
+        for (int i = 1; i < found.size; i++) { max = Math.max(max, found.logWeights[i]); }
+        double[] cdf = new double[found.size];
+        double total = 0;
+        for (int i = 0; i < found.size; i++) {
+            total += Math.exp(found.logWeights[i] - max);
+            cdf[i] = total;
+        }
+        for (int i = 0; i < found.size; i++) { cdf[i] /= total; }
+        cdf[found.size - 1] = 1;
+
+        this.shapes = Arrays.copyOf(found.shapes, found.size);
+        this.cdf = cdf;
+    }
+
+    /**
+     * List the lengths of shaped seat {@code k} and the ones after it.
+     *
+     * The number of deals with a combination is the product over the suits
+     * of the ways to choose each shaped seat's free cards of the suit, times
+     * the ways to share out the rest, which is the same for every
+     * combination. Up to that constant, its logarithm is
+     * {@code -sum(log(dealt!)) - sum(log(rest!))}.
+     *
+     * @param rest the free cards of each suit not yet given to a shaped seat
+     * @param shape the lengths chosen so far
+     * @param logWeight the part of the log weight chosen so far
+     */
+    private void enumerate(int k, int[] rest, long shape, double logWeight, Combinations found) {
+        if (k == this.shaped.length) {
+            for (int s = Rules.CLUBS; s <= Rules.SPADES; s++) { logWeight -= ConstrainedDealer.logFactorial(rest[s]); }
+            found.add(shape, logWeight);
+            return;
+        }
+
+        int seat = this.shaped[k];
+        int[] lo = new int[4], hi = new int[4];
+        for (int s = Rules.CLUBS; s <= Rules.SPADES; s++) {
+            int pre = Hand.length(this.predealt[seat], s);
+            lo[s] = Math.max(this.minLength[4 * seat + s], pre);
+            hi[s] = Math.min(this.maxLength[4 * seat + s], pre + rest[s]);
+        }
+
+        for (int c = lo[0]; c <= hi[0]; c++) {
+            for (int d = lo[1]; d <= hi[1] && c + d <= 13; d++) {
+                for (int h = lo[2]; h <= hi[2] && c + d + h <= 13; h++) {
+                    int sp = 13 - c - d - h;
+                    if (sp < lo[3] || sp > hi[3]) { continue; }
+
+                    int[] lengths = {c, d, h, sp};
+                    if (this.balanced[seat] && !Hand.isBalanced(ConstrainedDealer.pattern(lengths))) { continue; }
+
+                    double w = logWeight;
+                    long next = shape;
+                    for (int s = Rules.CLUBS; s <= Rules.SPADES; s++) {
+                        int dealt = lengths[s] - Hand.length(this.predealt[seat], s);
+                        rest[s] -= dealt;
+                        w -= ConstrainedDealer.logFactorial(dealt);
+                        next |= (long) lengths[s] << (16 * k + 4 * s);
+                    }
+
+                    this.enumerate(k + 1, rest, next, w, found);
+
+                    for (int s = Rules.CLUBS; s <= Rules.SPADES; s++) {
+                        rest[s] += lengths[s] - Hand.length(this.predealt[seat], s);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Make a hand with the given suit lengths, to check its pattern.
+     */
+    private static long pattern(int[] lengths) {
+        long hand = 0;
+        for (int s = Rules.CLUBS; s <= Rules.SPADES; s++) { hand |= ((1L << lengths[s]) - 1) << (13 * s); }
+
+        return hand;
+    }
+
+    private static double logFactorial(int n) {
+        double f = 0;
+        for (int i = 2; i <= n; i++) { f += Math.log(i); }
+
+        return f;
+    }
+
+    private void checkOpen() {
+        if (this.cdf != null) {
+            throw new IllegalStateException("Constraints can't change after the first deal.");
+        }
+    }
+
+    /**
+     * A growing list of shape combinations and their log weights.
+     */
+    private static class Combinations {
+        long[] shapes = new long[64];
+        double[] logWeights = new double[64];
+        int size;
+
+        void add(long shape, double logWeight) {
+            if (this.size == this.shapes.length) {
+                this.shapes = Arrays.copyOf(this.shapes, 2 * this.size);
+                this.logWeights = Arrays.copyOf(this.logWeights, 2 * this.size);
+            }
+            this.shapes[this.size] = shape;
+            this.logWeights[this.size++] = logWeight;
+        }
+    }
+}
@@ -22,6 +22,37 @@ public class Contract {
      */
     private final int STRAIN;
 
+    /**
+     * Vulnerable contracts score more when made and lose more when defeated.
+     */
+    private final boolean VULNERABLE;
+
+    /**
+     * The position of this contract's 14 scores in {@link #SCORES}.
+     */
+    private final int ROW;
+
+    /**
+     * Declarer's score for every contract and number of tricks taken, indexed
+     * by {@link #row} plus the tricks.
+     */
+    private static final int[] SCORES = new int[2 * 8 * 5 * 3 * 14];
+
+    static {
+        for (int vulnerable = 0; vulnerable < 2; vulnerable++) {
+            for (int rank = 0; rank <= 7; rank++) {
+                for (int strain = Rules.CLUBS; strain <= Rules.NOTRUMP; strain++) {
+                    for (int doubled = Rules.UNDOUBLED; doubled <= Rules.REDOUBLE; doubled++) {
+                        int row = Contract.row(rank, strain, doubled, vulnerable == 1);
+                        for (int made = 0; made <= 13; made++) {
+                            SCORES[row + made] = Contract.compute(rank, strain, doubled, vulnerable == 1, made);
+                        }
+                    }
+                }
+            }
+        }
+    }
+
     /**
      * Create the default contract (1NT by North).
      */
@@ -41,10 +72,33 @@ public class Contract {
      *                 {@code Rules.SOUTH}, or {@code Rules.WEST}
      */
     public Contract(int rank, int strain, int doubled, int declarer) {
+        this(rank, strain, doubled, declarer, false);
+    }
+
+    /**
+     * Create a contract from four ints and its vulnerability.
+     *
+     * @param rank 0-7, inclusive
+     * @param strain {@code Rules.CLUBS}, {@code Rules.DIAMONDS},
+     *               {@code Rules.HEARTS}, {@code Rules.SPADES}, or
+     *               {@code Rules.NOTRUMP}
+     * @param doubled 0 if undoubled, 1 if doubled, or 2 if redoubled
+     * @param declarer {@code Rules.NORTH}, {@code Rules.EAST},
+     *                 {@code Rules.SOUTH}, or {@code Rules.WEST}
+     * @param vulnerable whether declarer's side is vulnerable
+     */
+    public Contract(int rank, int strain, int doubled, int declarer, boolean vulnerable) {
+        if (rank < 0 || rank > 7 || strain < Rules.CLUBS || strain > Rules.NOTRUMP ||
+            doubled < Rules.UNDOUBLED || doubled > Rules.REDOUBLE) {
+            throw new IllegalArgumentException("Invalid contract: " + rank + " " + strain + " " + doubled);
+        }
+
         this.DECLARER = declarer;
         this.DOUBLED = doubled;
         this.RANK = rank;
         this.STRAIN = strain;
+        this.VULNERABLE = vulnerable;
+        this.ROW = Contract.row(rank, strain, doubled, vulnerable);
     }
 
     /**
@@ -91,7 +145,31 @@ public class Contract {
     public int declarer() { return this.DECLARER; }
 
     /**
-     * Find the score for the contract.
+     * Get whether declarer's side is vulnerable.
+     *
+     * @return {@code true} if vulnerable
+     */
+    public boolean vulnerable() { return this.VULNERABLE; }
+
+    /**
+     * Find the score for the contract from the results of the tricks.
+     *
+     * @param results the side that won each trick (0 for North/South, 1 for
+     *                East/West)
+     * @return declarer's score (defender's score is the negative of the score)
+     * @see #score(int)
+     */
+    public int score(int[] results) {
+        int made = 0;
+        for (int r : results) {
+            if (r == this.DECLARER % 2) { made++; }
+        }
+
+        return this.score(made);
+    }
+
+    /**
+     * Find the score for the contract, which is a single table lookup.
      *
      * The score is the sum of contract, overtrick, and bonus points minus
      * undertrick points.
@@ -105,10 +183,10 @@ public class Contract {
      * Overtrick points:
      * - NT/H/S: 30 points/overtrick
      * - C/D: 20 points/overtrick
-     * - X: 100 points/overtrick
-     * - XX: 200 points/overtrick
+     * - X: 100 points/overtrick (200 vulnerable)
+     * - XX: 200 points/overtrick (400 vulnerable)
      *
-     * Undertrick points:
+     * Undertrick points, not vulnerable:
      * +-----------------------+-----------+---------+-----------+
      * | Number of undertricks | Undoubled | Doubled | Redoubled |
      * |-----------------------+-----------+---------+-----------|
@@ -119,104 +197,117 @@ public class Contract {
      * |          4th+         |           |   300   |    600    |
      * |-----------------------+-----------+---------+-----------|
      *
-     * @param results the winners of each trick
+     * Undertrick points, vulnerable:
+     * +-----------------------+-----------+---------+-----------+
+     * | Number of undertricks | Undoubled | Doubled | Redoubled |
+     * |-----------------------+-----------+---------+-----------|
+     * |          1st          |           |   200   |    400    |
+     * |-----------------------|    100    |---------+-----------|
+     * |          2nd+         |           |   300   |    600    |
+     * |-----------------------+-----------+---------+-----------|
+     *
+     * Bonus points, for made contracts:
+     * - Slam bonus: 500 for rank 6 and 1000 for rank 7 (750 and 1500
+     *   vulnerable)
+     * - Game bonus: 300 for contract points of 100 or more (500 vulnerable)
+     * - Partscore bonus: 50 for contract points under 100, as in duplicate
+     * - 50 for making a doubled contract, 100 for a redoubled one
+     *
+     * @param made the number of tricks declarer took, 0-13
      * @return declarer's score (defender's score is the negative of the score)
+     * @throws IllegalArgumentException if {@code made} isn't 0-13
      */
-    public int score(int[] results) {
-        int contractPoints = 0, overPoints = 0, underPoints = 0, bonusPoints = 0;
-        int need = 6 + this.RANK;
-        int made = 0;
-        for (int r : results) {
-            if (r == this.DECLARER % 2) { made++; }
+    public int score(int made) { return SCORES[this.ROW + Contract.checkTricks(made)]; }
+
+    /**
+     * Find the scores for many numbers of tricks.
+     *
+     * @param made the number of tricks declarer took in each result
+     * @param out the array to fill with declarer's scores
+     * @throws IllegalArgumentException if a number of tricks isn't 0-13
+     */
+    public void score(int[] made, int[] out) {
+        for (int i = 0; i < made.length; i++) {
+            out[i] = SCORES[this.ROW + Contract.checkTricks(made[i])];
         }
+    }
 
-        if (this.RANK == 0) { return 0; } // Nobody scores if everybody passed
+    /**
+     * Check that a number of tricks is in range, so that it can't read
+     * another contract's scores.
+     */
+    private static int checkTricks(int made) {
+        if (made < 0 || made > 13) { throw new IllegalArgumentException("Invalid number of tricks: " + made); }
 
-        if (made >= need) {
-            if (this.STRAIN == Rules.NOTRUMP) {
-                contractPoints = 10 + 30 * this.RANK;
-            }
-            else if (this.STRAIN == Rules.HEARTS || this.STRAIN == Rules.SPADES) {
-                contractPoints = 30 * this.RANK;
-            }
-            else if (this.STRAIN == Rules.CLUBS || this.STRAIN == Rules.DIAMONDS) {
-                contractPoints = 20 * this.RANK;
-            }
+        return made;
+    }
 
-            if (this.DOUBLED == Rules.DOUBLE)        { contractPoints *= 2; }
-            else if (this.DOUBLED == Rules.REDOUBLE) { contractPoints *= 4; }
-        }
+    /**
+     * Get the position of a contract's scores in {@link #SCORES}.
+     */
+    private static int row(int rank, int strain, int doubled, boolean vulnerable) {
+        return 14 * (3 * (5 * (8 * (vulnerable ? 1 : 0) + rank) + strain) + doubled);
+    }
+
+    /**
+     * Work out the contract points of a made contract, which decide whether
+     * it scores the game or the partscore bonus.
+     *
+     * @param rank 1-7
+     * @param strain {@code Rules.CLUBS} to {@code Rules.NOTRUMP}
+     * @param doubled {@code Rules.UNDOUBLED} to {@code Rules.REDOUBLE}
+     * @return the points for the tricks bid, not counting overtricks
+     */
+    static int contractPoints(int rank, int strain, int doubled) {
+        int perTrick = strain == Rules.CLUBS || strain == Rules.DIAMONDS ? 20 : 30;
+        return (perTrick * rank + (strain == Rules.NOTRUMP ? 10 : 0)) << doubled; // X and XX are *2 and *4
+    }
+
+    /**
+     * Work out declarer's score for one entry of {@link #SCORES}, by the
+     * rules given in {@link #score(int)}.
+     */
+    private static int compute(int rank, int strain, int doubled, boolean vulnerable, int made) {
+        if (rank == 0) { return 0; } // Nobody scores if everybody passed
+
+        int need = 6 + rank;
+        int score;
+
+        if (made >= need) {
+            int perTrick = strain == Rules.CLUBS || strain == Rules.DIAMONDS ? 20 : 30;
+            int contractPoints = Contract.contractPoints(rank, strain, doubled);
 
-        if (made > need) {
             int overtricks = made - need;
-            if (this.DOUBLED == 1) {
-                overPoints = 100 * overtricks;
-            }
-            else if (this.DOUBLED == 2) {
-                overPoints = 200 * overtricks;
-            }
-            else if (this.STRAIN == Rules.HEARTS || this.STRAIN == Rules.SPADES || this.STRAIN == Rules.NOTRUMP) {
-                overPoints = 30 * overtricks;
-            }
-            else {
-                overPoints = 20 * overtricks;
-            }
-        }
+            int overPoints = doubled == Rules.UNDOUBLED ? perTrick * overtricks
+                                                        : (vulnerable ? 200 : 100) * doubled * overtricks;
 
-        if (made < need) {
+            int bonusPoints = 50 * doubled;
+            if (contractPoints >= 100) { bonusPoints += vulnerable ? 500 : 300; }
+            else                       { bonusPoints += 50; } // Partscore bonus
+            if (rank == 6)             { bonusPoints += vulnerable ? 750 : 500; }
+            else if (rank == 7)        { bonusPoints += vulnerable ? 1500 : 1000; }
+
+            score = contractPoints + overPoints + bonusPoints;
+        }
+        else {
             int undertricks = need - made;
-            if (this.DOUBLED == 0) {
-                underPoints = 50 * undertricks;
+            int underPoints = 0;
+            if (doubled == Rules.UNDOUBLED) {
+                underPoints = (vulnerable ? 100 : 50) * undertricks;
             }
             else {
                 for (int i = 0; i < undertricks; i++) {
-                    if (i == 0) {
-                        underPoints += 100 * this.DOUBLED * 2;
-                    }
-                    else if (i == 1 || i == 2) {
-                        underPoints += 200 * this.DOUBLED * 2;
-                    }
-                    else {
-                        underPoints += 300 * this.DOUBLED * 2;
-                    }
+                    if (i == 0)                     { underPoints += vulnerable ? 200 : 100; }
+                    else if (i <= 2 && !vulnerable) { underPoints += 200; }
+                    else                            { underPoints += 300; }
                 }
-            }
-        }
-
-        /*
-         * Bonus points:
-         * - Slam bonus:
-         *  - For a made rank-6 contract, 500 points are awarded.
-         *  - For a made rank-7 contract, 1000 points are awarded.
-         * - Game bonus: for a made contract worth 100 or more points, 300
-         *   points are awarded.
-         * - Doubled/redoubled bonus:
-         *  - If a made contract was doubled, 50 points are awarded.
-         *  - If a made contract was redoubled, 100 points are awarded.
-         */
-        if (made >= need) {
-            if (need == 6) {
-                bonusPoints += 500;
-            }
-            else if (need == 7) {
-                bonusPoints += 1000;
-            }
-
-            if (contractPoints >= 100) {
-                bonusPoints += 300;
+                underPoints *= doubled;
             }
 
-            if (made - need >= 0) {
-                if (this.DOUBLED == 1) {
-                    bonusPoints += 50;
-                }
-                else if (this.DOUBLED == 2) {
-                    bonusPoints += 100;
-                }
-            }
+            score = -underPoints;
         }
 
-        return contractPoints + overPoints - underPoints + bonusPoints;
+        return score;
     }
 
     public String toString() {
@@ -0,0 +1,89 @@
+package bridge;
+
+import java.nio.ByteBuffer;
+
+/**
+ * The packed format of a deal.
+ *
+ * A deal is stored in {@link #BYTES} bytes, with two bits per card holding the
+ * seat ({@code Rules.NORTH} to {@code Rules.WEST}) the card was dealt to. The
+ * card with index {@code c} (see {@link Card#index()}) is in byte
+ * {@code c / 4}, at bit {@code 2 * (c % 4)}.
+ */
+public final class Deal {
+    /**
+     * The number of bytes in a packed deal.
+     */
+    public static final int BYTES = 13;
+
+    private Deal() {} // A Deal object should never be instantiated
+
+    /**
+     * Pack four hands.
+     *
+     * @param hands the bitboards of the four seats, indexed by seat
+     * @param out the buffer to write to
+     * @param off the position of the first byte of the deal
+     */
+    public static void pack(long[] hands, byte[] out, int off) {
+        for (int i = 0; i < BYTES; i++) { out[off + i] = 0; }
+
+        for (int seat = Rules.EAST; seat <= Rules.WEST; seat++) { // North is 0, so its cards need no bits
+            for (long h = hands[seat]; h != 0; h &= h - 1) {
+                int c = Long.numberOfTrailingZeros(h);
+                out[off + (c >> 2)] |= (byte) (seat << ((c & 3) << 1));
+            }
+        }
+    }
+
+    /**
+     * Unpack a deal into four hands.
+     *
+     * @param in the buffer to read from
+     * @param off the position of the first byte of the deal
+     * @param hands the array to fill with the bitboards of the four seats
+     */
+    public static void unpack(byte[] in, int off, long[] hands) {
+        long n = 0, e = 0, s = 0, w = 0;
+        for (int c = 0; c < 52; c++) {
+            int seat = (in[off + (c >> 2)] >> ((c & 3) << 1)) & 3;
+            long b = 1L << c;
+            if (seat == Rules.NORTH)     { n |= b; }
+            else if (seat == Rules.EAST) { e |= b; }
+            else if (seat == Rules.SOUTH) { s |= b; }
+            else                         { w |= b; }
+        }
+
+        hands[Rules.NORTH] = n;
+        hands[Rules.EAST] = e;
+        hands[Rules.SOUTH] = s;
+        hands[Rules.WEST] = w;
+    }
+
+    /**
+     * Unpack a deal from a {@code ByteBuffer} into four hands.
+     *
+     * @param in the buffer to read from, which isn't repositioned
+     * @param off the absolute position of the first byte of the deal
+     * @param hands the array to fill with the bitboards of the four seats
+     */
+    public static void unpack(ByteBuffer in, int off, long[] hands) {
+        hands[Rules.NORTH] = hands[Rules.EAST] = hands[Rules.SOUTH] = hands[Rules.WEST] = 0;
+        for (int c = 0; c < 52; c++) {
+            hands[(in.get(off + (c >> 2)) >> ((c & 3) << 1)) & 3] |= 1L << c;
+        }
+    }
+
+    /**
+     * Find who holds a card in a packed deal.
+     *
+     * @param in the buffer to read from
+     * @param off the position of the first byte of the deal
+     * @param card the index of the card
+     * @return {@code Rules.NORTH}, {@code Rules.EAST}, {@code Rules.SOUTH},
+     *         or {@code Rules.WEST}
+     */
+    public static int seat(byte[] in, int off, int card) {
+        return (in[off + (card >> 2)] >> ((card & 3) << 1)) & 3;
+    }
+}
@@ -0,0 +1,187 @@
+package bridge;
+
+import java.math.BigInteger;
+
+/**
+ * Numbers every deal with a unique integer in {@code [0, 52! / (13!)^4)}.
+ *
+ * The number of a deal is its rank among all deals in lexicographic order of
+ * the seats of the cards, with the cards taken in the order of
+ * {@link Card#compareTo} and the seats in the order {@code Rules.NORTH} to
+ * {@code Rules.WEST}. Deal 0 gives North all the clubs and West all the
+ * spades.
+ *
+ * Numbers need 96 bits, so they are passed around as a high and a low
+ * {@code long} (the high one is less than 2<sup>32</sup>) or as 12 big-endian
+ * bytes. Neither direction allocates.
+ */
+public final class DealCodec {
+    /**
+     * The number of bytes in an encoded deal.
+     */
+    public static final int BYTES = 12;
+
+    /**
+     * The weight of each seat's count in a table index. The counts are
+     * stored plus one, so that taking a card from a seat that has none left
+     * lands on an entry of 0.
+     */
+    private static final int[] WEIGHT = { 15 * 15 * 15, 15 * 15, 15, 1 };
+
+    /**
+     * The index of the entry for 13 cards left to each seat.
+     */
+    private static final int FULL = 14 * (WEIGHT[0] + WEIGHT[1] + WEIGHT[2] + WEIGHT[3]);
+
+    /**
+     * The high and low halves of the number of ways to deal the remaining
+     * cards, given how many cards each seat has left to receive.
+     */
+    private static final long[] WAYS_HI = new long[15 * 15 * 15 * 15];
+    private static final long[] WAYS_LO = new long[15 * 15 * 15 * 15];
+
+    static {
+        WAYS_LO[WEIGHT[0] + WEIGHT[1] + WEIGHT[2] + WEIGHT[3]] = 1; // The empty deal
+
+        for (int n = 1; n <= 14; n++) {
+            for (int e = 1; e <= 14; e++) {
+                for (int s = 1; s <= 14; s++) {
+                    for (int w = 1; w <= 14; w++) {
+                        int key = n * WEIGHT[0] + e * WEIGHT[1] + s * WEIGHT[2] + w * WEIGHT[3];
+                        if (n + e + s + w == 4) { continue; }
+
+                        // The next card goes to one of the seats that still needs one
+                        long hi = 0, lo = 0;
+                        for (int t = Rules.NORTH; t <= Rules.WEST; t++) {
+                            long add = WAYS_LO[key - WEIGHT[t]];
+                            lo += add;
+                            hi += WAYS_HI[key - WEIGHT[t]] + (Long.compareUnsigned(lo, add) < 0 ? 1 : 0);
+                        }
+                        WAYS_HI[key] = hi;
+                        WAYS_LO[key] = lo;
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * The number of distinct deals.
+     */
+    public static final BigInteger COUNT = DealCodec.toBigInteger(WAYS_HI[FULL], WAYS_LO[FULL]);
+
+    private DealCodec() {} // A DealCodec object should never be instantiated
+
+    /**
+     * Get the number of a deal.
+     *
+     * @param hands the bitboards of the four seats, indexed by seat
+     * @param out an array whose first two elements are set to the high and
+     *            low halves of the number
+     */
+    public static void encode(long[] hands, long[] out) {
+        long e = hands[Rules.EAST], s = hands[Rules.SOUTH], w = hands[Rules.WEST];
+        long hi = 0, lo = 0;
+        int key = FULL;
+
+        for (int c = 0; c < 52; c++) {
+            // East and West have bit 0 of their seat set, South and West bit 1
+            int seat = (int) (((e | w) >>> c) & 1) | (int) (((s | w) >>> c) & 1) << 1;
+
+            // Count the deals that give this card to an earlier seat
+            for (int t = Rules.NORTH; t < seat; t++) {
+                long add = WAYS_LO[key - WEIGHT[t]];
+                lo += add;
+                hi += WAYS_HI[key - WEIGHT[t]] + (Long.compareUnsigned(lo, add) < 0 ? 1 : 0);
+            }
+            key -= WEIGHT[seat];
+        }
+
+        out[0] = hi;
+        out[1] = lo;
+    }
+
+    /**
+     * Get the number of a deal as 12 big-endian bytes.
+     *
+     * @param hands the bitboards of the four seats, indexed by seat
+     * @param out the buffer to write to
+     * @param off the position of the first byte
+     * @param scratch an array of at least two elements used while encoding
+     */
+    public static void encode(long[] hands, byte[] out, int off, long[] scratch) {
+        DealCodec.encode(hands, scratch);
+        long hi = scratch[0], lo = scratch[1];
+
+        for (int i = 0; i < 4; i++) { out[off + i] = (byte) (hi >>> (24 - 8 * i)); }
+        for (int i = 0; i < 8; i++) { out[off + 4 + i] = (byte) (lo >>> (56 - 8 * i)); }
+    }
+
+    /**
+     * Get the deal with a given number.
+     *
+     * @param hi the high half of the number
+     * @param lo the low half of the number
+     * @param hands the array to fill with the bitboards of the four seats
+     * @throws IllegalArgumentException if the number isn't less than
+     *                                  {@link #COUNT}
+     */
+    public static void decode(long hi, long lo, long[] hands) {
+        if (!DealCodec.less(hi, lo, WAYS_HI[FULL], WAYS_LO[FULL])) {
+            throw new IllegalArgumentException("Deal number out of range.");
+        }
+
+        hands[Rules.NORTH] = hands[Rules.EAST] = hands[Rules.SOUTH] = hands[Rules.WEST] = 0;
+        int key = FULL;
+
+        for (int c = 0; c < 52; c++) {
+            // Skip over the seats whose block of deals lies before the number
+            int seat = Rules.NORTH;
+            for ( ; seat < Rules.WEST; seat++) {
+                long mhi = WAYS_HI[key - WEIGHT[seat]], mlo = WAYS_LO[key - WEIGHT[seat]];
+                if (DealCodec.less(hi, lo, mhi, mlo)) { break; }
+
+                hi -= mhi + (Long.compareUnsigned(lo, mlo) < 0 ? 1 : 0);
+                lo -= mlo;
+            }
+
+            hands[seat] |= 1L << c;
+            key -= WEIGHT[seat];
+        }
+    }
+
+    /**
+     * Get the deal with a number stored as 12 big-endian bytes.
+     *
+     * @param in the buffer to read from
+     * @param off the position of the first byte
+     * @param hands the array to fill with the bitboards of the four seats
+     */
+    public static void decode(byte[] in, int off, long[] hands) {
+        long hi = 0, lo = 0;
+        for (int i = 0; i < 4; i++) { hi = hi << 8 | (in[off + i] & 0xFF); }
+        for (int i = 0; i < 8; i++) { lo = lo << 8 | (in[off + 4 + i] & 0xFF); }
+
+        DealCodec.decode(hi, lo, hands);
+    }
+
+    /**
+     * Convert a number to a {@code BigInteger}, for display or arithmetic
+     * on ranges.
+     *
+     * @param hi the high half of the number
+     * @param lo the low half of the number
+     * @return the number
+     */
+    public static BigInteger toBigInteger(long hi, long lo) {
+        return BigInteger.valueOf(hi).shiftLeft(64).or(BigInteger.valueOf(lo >>> 1).shiftLeft(1))
+                         .or(BigInteger.valueOf(lo & 1));
+    }
+
+    /**
+     * Check if one unsigned 128-bit number is less than another.
+     */
+    private static boolean less(long ahi, long alo, long bhi, long blo) {
+        return ahi != bhi ? Long.compareUnsigned(ahi, bhi) < 0 : Long.compareUnsigned(alo, blo) < 0;
+    }
+}
@@ -0,0 +1,163 @@
+package bridge;
+
+import java.nio.ByteBuffer;
+import java.util.SplittableRandom;
+import java.util.random.RandomGenerator;
+import java.util.stream.IntStream;
+
+/**
+ * Generates random deals in bulk, in the packed format of {@link Deal}.
+ *
+ * A single generator isn't thread-safe. The static {@code generate} methods
+ * split the work into blocks of {@link #BLOCK} deals and give each block its
+ * own stream split from a seeded {@code SplittableRandom}, so the blocks run
+ * on all cores and the output depends only on the seed.
+ */
+public class DealGenerator {
+    /**
+     * The number of deals generated from each split stream.
+     */
+    public static final int BLOCK = 1 << 14;
+
+    private final RandomGenerator random;
+
+    /**
+     * The seat of each card, 13 of each, shuffled for every deal.
+     */
+    private final byte[] seats = new byte[52];
+
+    /**
+     * Create a generator.
+     *
+     * @param random the source of randomness
+     */
+    public DealGenerator(RandomGenerator random) {
+        this.random = random;
+        for (int c = 0; c < 52; c++) { this.seats[c] = (byte) (c / 13); }
+    }
+
+    /**
+     * Generate one deal as four bitboards.
+     *
+     * @param hands the array to fill with the hands, indexed by seat
+     */
+    public void next(long[] hands) {
+        Deck.shuffle(this.seats, this.random);
+
+        hands[Rules.NORTH] = hands[Rules.EAST] = hands[Rules.SOUTH] = hands[Rules.WEST] = 0;
+        for (int c = 0; c < 52; c++) { hands[this.seats[c]] |= 1L << c; }
+    }
+
+    /**
+     * Generate one packed deal.
+     *
+     * @param out the buffer to write to
+     * @param off the position of the first byte of the deal
+     */
+    public void next(byte[] out, int off) {
+        // Shuffling the seats instead of the cards gives the packed form directly
+        Deck.shuffle(this.seats, this.random);
+
+        byte[] s = this.seats;
+        for (int i = 0, c = 0; i < Deal.BYTES; i++, c += 4) {
+            out[off + i] = (byte) (s[c] | s[c + 1] << 2 | s[c + 2] << 4 | s[c + 3] << 6);
+        }
+    }
+
+    /**
+     * Generate consecutive packed deals.
+     *
+     * @param out the buffer to write to
+     * @param off the position of the first byte of the first deal
+     * @param count the number of deals
+     */
+    public void next(byte[] out, int off, int count) {
+        for (int i = 0; i < count; i++, off += Deal.BYTES) { this.next(out, off); }
+    }
+
+    /**
+     * Generate packed deals in parallel.
+     *
+     * @param seed the seed that determines every deal
+     * @param count the number of deals
+     * @return {@code count * Deal.BYTES} bytes of packed deals
+     */
+    public static byte[] generate(long seed, int count) {
+        byte[] out = new byte[Math.multiplyExact(count, Deal.BYTES)];
+        RandomGenerator[] streams = DealGenerator.streams(seed, count);
+
+        IntStream.range(0, streams.length).parallel().forEach(b -> {
+            int first = b * BLOCK;
+            new DealGenerator(streams[b]).next(out, first * Deal.BYTES, Math.min(BLOCK, count - first));
+        });
+
+        return out;
+    }
+
+    /**
+     * Generate packed deals that meet a condition, in parallel. Each block
+     * deals from its own stream until it has {@link #BLOCK} deals that meet
+     * the condition, so the deals depend only on the seed and the condition.
+     *
+     * @param seed the seed that determines every deal
+     * @param count the number of deals
+     * @param filter the condition, such as one compiled by
+     *               {@link DealScript}, which must be safe to call from
+     *               several threads
+     * @return {@code count * Deal.BYTES} bytes of packed deals
+     */
+    public static byte[] generate(long seed, int count, DealPredicate filter) {
+        byte[] out = new byte[Math.multiplyExact(count, Deal.BYTES)];
+        RandomGenerator[] streams = DealGenerator.streams(seed, count);
+
+        IntStream.range(0, streams.length).parallel().forEach(b -> {
+            DealGenerator generator = new DealGenerator(streams[b]);
+            long[] hands = new long[4];
+            for (int i = b * BLOCK; i < Math.min(count, (b + 1) * BLOCK); i++) {
+                do { generator.next(hands); } while (!filter.test(hands));
+                Deal.pack(hands, out, i * Deal.BYTES);
+            }
+        });
+
+        return out;
+    }
+
+    /**
+     * Generate packed deals in parallel into a buffer, such as a direct or
+     * memory-mapped one. The deals are the same as those of
+     * {@link #generate(long, int)} with the same seed.
+     *
+     * @param seed the seed that determines every deal
+     * @param out the buffer to write to, starting at its position, which is
+     *            advanced past the deals
+     * @param count the number of deals
+     */
+    public static void generate(long seed, ByteBuffer out, int count) {
+        int start = out.position();
+        if (out.remaining() / Deal.BYTES < count) {
+            throw new IllegalArgumentException("Buffer has room for fewer than " + count + " deals.");
+        }
+        RandomGenerator[] streams = DealGenerator.streams(seed, count);
+
+        IntStream.range(0, streams.length).parallel().forEach(b -> {
+            int first = b * BLOCK;
+            int n = Math.min(BLOCK, count - first);
+            byte[] block = new byte[n * Deal.BYTES];
+            new DealGenerator(streams[b]).next(block, 0, n);
+            out.put(start + first * Deal.BYTES, block); // Absolute, so the blocks don't share a position
+        });
+
+        out.position(start + count * Deal.BYTES);
+    }
+
+    /**
+     * Split one independent stream per block from the seed, in block order.
+     */
+    private static RandomGenerator[] streams(long seed, int count) {
+        SplittableRandom root = new SplittableRandom(seed);
+        RandomGenerator[] streams = new RandomGenerator[(count + BLOCK - 1) / BLOCK];
+        for (int b = 0; b < streams.length; b++) { streams[b] = root.split(); }
+
+        return streams;
+    }
+}
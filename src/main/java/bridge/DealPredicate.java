@@ -0,0 +1,34 @@
+package bridge;
+
+/**
+ * A condition on a deal, such as one compiled by {@link DealScript}.
+ */
+@FunctionalInterface
+public interface DealPredicate {
+    /**
+     * Check a deal.
+     *
+     * @param hands the bitboards of the four seats (see {@link Hand}),
+     *              indexed by seat
+     * @return {@code true} if the deal meets the condition
+     */
+    boolean test(long[] hands);
+
+    /**
+     * Count the packed deals (see {@link Deal}) that meet the condition.
+     *
+     * @param deals the packed deals
+     * @param count the number of deals
+     * @return the number that meet it
+     */
+    default int count(byte[] deals, int count) {
+        long[] hands = new long[4];
+        int n = 0;
+        for (int i = 0; i < count; i++) {
+            Deal.unpack(deals, i * Deal.BYTES, hands);
+            if (this.test(hands)) { n++; }
+        }
+
+        return n;
+    }
+}
@@ -0,0 +1,411 @@
+package bridge;
+
+/**
+ * Compiles conditions on deals, written like
+ * {@code hcp(north) >= 12 && spades(north) >= 5}, into {@link DealPredicate}s.
+ *
+ * A script is parsed once into a tree of lambdas, each of which evaluates
+ * its children directly, so testing a deal walks no syntax tree, looks
+ * nothing up by name and allocates nothing. Parts made only of numbers are
+ * worked out while compiling.
+ *
+ * The language:
+ * - Seats: {@code north}, {@code east}, {@code south}, {@code west}, or
+ *   {@code n}, {@code e}, {@code s}, {@code w}
+ * - Numbers: {@code hcp(seat)}, {@code controls(seat)}, {@code losers(seat)},
+ *   {@code quicktricks(seat)} (in half tricks), {@code clubs(seat)},
+ *   {@code diamonds(seat)}, {@code hearts(seat)}, {@code spades(seat)},
+ *   {@code quality(seat, suit)}, whole numbers, and {@code + - *} between
+ *   them (see {@link Evaluator})
+ * - Conditions: {@code balanced(seat)}, {@code has(seat, card)} (with cards
+ *   as in {@link Card#Card(String)}), comparisons of numbers with
+ *   {@code == != < <= > >=}, and {@code ! && ||} between conditions
+ * - Parentheses group either
+ *
+ * Names are case-insensitive.
+ */
+public final class DealScript {
+    /**
+     * A number worked out from a deal.
+     */
+    @FunctionalInterface
+    private interface IntExpr {
+        int eval(long[] hands);
+    }
+
+    /**
+     * A compiled part of a script: a number, which may be a constant, or a
+     * condition.
+     */
+    private static final class Expr {
+        final IntExpr number;
+        final DealPredicate condition;
+        final boolean constant;
+        final int value;
+
+        private Expr(IntExpr number, DealPredicate condition, boolean constant, int value) {
+            this.number = number;
+            this.condition = condition;
+            this.constant = constant;
+            this.value = value;
+        }
+
+        static Expr number(IntExpr number) { return new Expr(number, null, false, 0); }
+
+        static Expr condition(DealPredicate condition) { return new Expr(null, condition, false, 0); }
+
+        static Expr constant(int value) { return new Expr(h -> value, null, true, value); }
+
+        boolean isNumber() { return this.number != null; }
+    }
+
+    private final String source;
+
+    /**
+     * The names of the seats, indexed by position in the array tested, or
+     * {@code null} for the usual four seats.
+     */
+    private final String[] seats;
+
+    /**
+     * The position of the next unread character.
+     */
+    private int pos;
+
+    private DealScript(String source, String[] seats) {
+        this.source = source;
+        this.seats = seats;
+    }
+
+    /**
+     * Compile a script.
+     *
+     * @param source the text of the script
+     * @return the condition the script describes
+     * @throws IllegalArgumentException if the script isn't valid, with the
+     *                                  position of the problem
+     */
+    public static DealPredicate compile(String source) { return DealScript.compile(source, null); }
+
+    /**
+     * Compile a script with its own names for the seats. The condition then
+     * tests an array of as many hands as there are names, such as just the
+     * hand of the player choosing a call.
+     *
+     * @param source the text of the script
+     * @param seats the lower-case name of each hand, indexed by position in
+     *              the array tested, or {@code null} for the usual seats
+     * @return the condition the script describes
+     * @throws IllegalArgumentException if the script isn't valid, with the
+     *                                  position of the problem
+     */
+    public static DealPredicate compile(String source, String[] seats) {
+        DealScript script = new DealScript(source, seats);
+        Expr e = script.or();
+        script.skipSpace();
+        if (script.pos != source.length()) { throw script.error("Unexpected text"); }
+
+        return script.condition(e);
+    }
+
+    private Expr or() {
+        Expr left = this.and();
+        while (this.accept("||")) {
+            DealPredicate a = this.condition(left), b = this.condition(this.and());
+            left = Expr.condition(h -> a.test(h) || b.test(h));
+        }
+
+        return left;
+    }
+
+    private Expr and() {
+        Expr left = this.not();
+        while (this.accept("&&")) {
+            DealPredicate a = this.condition(left), b = this.condition(this.not());
+            left = Expr.condition(h -> a.test(h) && b.test(h));
+        }
+
+        return left;
+    }
+
+    private Expr not() {
+        if (this.accept("!") ) {
+            DealPredicate a = this.condition(this.not());
+            return Expr.condition(h -> !a.test(h));
+        }
+
+        return this.comparison();
+    }
+
+    private Expr comparison() {
+        Expr left = this.sum();
+
+        String[] ops = {"==", "!=", "<=", ">=", "<", ">"};
+        for (String op : ops) {
+            if (this.accept(op)) {
+                return DealScript.compare(this.number(left), op, this.number(this.sum()));
+            }
+        }
+
+        return left;
+    }
+
+    /**
+     * Compile a comparison, with the common case of a constant on the right
+     * kept to one call.
+     */
+    private static Expr compare(Expr left, String op, Expr right) {
+        IntExpr a = left.number, b = right.number;
+        if (left.constant && right.constant) {
+            int x = left.value, y = right.value;
+            boolean result = op.equals("==") ? x == y : op.equals("!=") ? x != y : op.equals("<=") ? x <= y :
+                             op.equals(">=") ? x >= y : op.equals("<") ? x < y : x > y;
+            return Expr.condition(h -> result);
+        }
+        if (right.constant) {
+            int c = right.value;
+            switch (op) {
+                case "==": return Expr.condition(h -> a.eval(h) == c);
+                case "!=": return Expr.condition(h -> a.eval(h) != c);
+                case "<=": return Expr.condition(h -> a.eval(h) <= c);
+                case ">=": return Expr.condition(h -> a.eval(h) >= c);
+                case "<":  return Expr.condition(h -> a.eval(h) < c);
+                default:   return Expr.condition(h -> a.eval(h) > c);
+            }
+        }
+
+        switch (op) {
+            case "==": return Expr.condition(h -> a.eval(h) == b.eval(h));
+            case "!=": return Expr.condition(h -> a.eval(h) != b.eval(h));
+            case "<=": return Expr.condition(h -> a.eval(h) <= b.eval(h));
+            case ">=": return Expr.condition(h -> a.eval(h) >= b.eval(h));
+            case "<":  return Expr.condition(h -> a.eval(h) < b.eval(h));
+            default:   return Expr.condition(h -> a.eval(h) > b.eval(h));
+        }
+    }
+
+    private Expr sum() {
+        Expr left = this.product();
+        while (true) {
+            if (this.accept("+")) {
+                Expr right = this.number(this.product());
+                left = this.number(left);
+                if (left.constant && right.constant) { left = Expr.constant(left.value + right.value); }
+                else {
+                    IntExpr a = left.number, b = right.number;
+                    left = Expr.number(h -> a.eval(h) + b.eval(h));
+                }
+            }
+            else if (this.accept("-")) {
+                Expr right = this.number(this.product());
+                left = this.number(left);
+                if (left.constant && right.constant) { left = Expr.constant(left.value - right.value); }
+                else {
+                    IntExpr a = left.number, b = right.number;
+                    left = Expr.number(h -> a.eval(h) - b.eval(h));
+                }
+            }
+            else {
+                return left;
+            }
+        }
+    }
+
+    private Expr product() {
+        Expr left = this.atom();
+        while (this.accept("*")) {
+            Expr right = this.number(this.atom());
+            left = this.number(left);
+            if (left.constant && right.constant) { left = Expr.constant(left.value * right.value); }
+            else {
+                IntExpr a = left.number, b = right.number;
+                left = Expr.number(h -> a.eval(h) * b.eval(h));
+            }
+        }
+
+        return left;
+    }
+
+    private Expr atom() {
+        if (this.accept("(")) {
+            Expr e = this.or();
+            this.expect(")");
+            return e;
+        }
+        if (this.accept("-")) {
+            Expr e = this.number(this.atom());
+            if (e.constant) { return Expr.constant(-e.value); }
+            IntExpr a = e.number;
+            return Expr.number(h -> -a.eval(h));
+        }
+
+        int start = this.pos;
+        String word = this.word();
+        if (word.isEmpty()) { throw this.error("Expected a number, a function or '('"); }
+        if (Character.isDigit(word.charAt(0))) {
+            try {
+                return Expr.constant(Integer.parseInt(word));
+            }
+            catch (NumberFormatException e) {
+                this.pos = start;
+                throw this.error("Invalid number " + word);
+            }
+        }
+
+        return this.function(word.toLowerCase(), start);
+    }
+
+    /**
+     * Compile a call of a built-in function, after its name.
+     */
+    private Expr function(String name, int start) {
+        this.expect("(");
+        int seat = this.seat();
+        Expr e;
+
+        switch (name) {
+            case "hcp":
+                e = Expr.number(h -> Hand.hcp(h[seat]));
+                break;
+            case "controls":
+                e = Expr.number(h -> Evaluator.controls(h[seat]));
+                break;
+            case "losers":
+                e = Expr.number(h -> Evaluator.losers(h[seat]));
+                break;
+            case "quicktricks":
+                e = Expr.number(h -> Evaluator.quickTricks(h[seat]));
+                break;
+            case "quality":
+                this.expect(",");
+                int suit = this.suit();
+                e = Expr.number(h -> Evaluator.quality(h[seat], suit));
+                break;
+            case "clubs":
+            case "diamonds":
+            case "hearts":
+            case "spades":
+                long mask = Hand.suitMask(name.equals("clubs") ? Rules.CLUBS : name.equals("diamonds") ? Rules.DIAMONDS :
+                                          name.equals("hearts") ? Rules.HEARTS : Rules.SPADES);
+                e = Expr.number(h -> Long.bitCount(h[seat] & mask));
+                break;
+            case "balanced":
+                e = Expr.condition(h -> Hand.isBalanced(h[seat]));
+                break;
+            case "has":
+                this.expect(",");
+                this.skipSpace();
+                int at = this.pos;
+                String text = this.word();
+                int card = Notation.card(text);
+                if (card == Notation.INVALID) {
+                    this.pos = at;
+                    throw this.error("Invalid card " + text);
+                }
+                long bit = 1L << card;
+                e = Expr.condition(h -> (h[seat] & bit) != 0);
+                break;
+            default:
+                this.pos = start;
+                throw this.error("Unknown function " + name);
+        }
+
+        this.expect(")");
+        return e;
+    }
+
+    private int seat() {
+        this.skipSpace();
+        int start = this.pos;
+        String word = this.word().toLowerCase();
+        if (this.seats != null) {
+            for (int i = 0; i < this.seats.length; i++) {
+                if (this.seats[i].equals(word)) { return i; }
+            }
+            this.pos = start;
+            throw this.error("Expected one of " + String.join(", ", this.seats));
+        }
+
+        switch (word) {
+            case "north": case "n": return Rules.NORTH;
+            case "east":  case "e": return Rules.EAST;
+            case "south": case "s": return Rules.SOUTH;
+            case "west":  case "w": return Rules.WEST;
+            default:
+                this.pos = start;
+                throw this.error("Expected a seat");
+        }
+    }
+
+    private int suit() {
+        this.skipSpace();
+        int start = this.pos;
+        String word = this.word().toLowerCase();
+        switch (word) {
+            case "clubs":    case "c": return Rules.CLUBS;
+            case "diamonds": case "d": return Rules.DIAMONDS;
+            case "hearts":   case "h": return Rules.HEARTS;
+            case "spades":   case "s": return Rules.SPADES;
+            default:
+                this.pos = start;
+                throw this.error("Expected a suit");
+        }
+    }
+
+    private Expr number(Expr e) {
+        if (!e.isNumber()) { throw this.error("Expected a number, not a condition"); }
+
+        return e;
+    }
+
+    private DealPredicate condition(Expr e) {
+        if (e.isNumber()) { throw this.error("Expected a condition, not a number"); }
+
+        return e.condition;
+    }
+
+    /**
+     * Read a run of letters and digits.
+     */
+    private String word() {
+        this.skipSpace();
+        int start = this.pos;
+        while (this.pos < this.source.length() && Character.isLetterOrDigit(this.source.charAt(this.pos))) {
+            this.pos++;
+        }
+
+        return this.source.substring(start, this.pos);
+    }
+
+    /**
+     * Read a symbol if it comes next.
+     */
+    private boolean accept(String symbol) {
+        this.skipSpace();
+        if (!this.source.startsWith(symbol, this.pos)) { return false; }
+
+        // Don't read the start of a longer symbol, like "<" of "<="
+        int end = this.pos + symbol.length();
+        if (end < this.source.length() && symbol.length() == 1 && "<>!=".indexOf(symbol.charAt(0)) >= 0 &&
+            this.source.charAt(end) == '=') {
+            return false;
+        }
+
+        this.pos = end;
+        return true;
+    }
+
+    private void expect(String symbol) {
+        if (!this.accept(symbol)) { throw this.error("Expected '" + symbol + "'"); }
+    }
+
+    private void skipSpace() {
+        while (this.pos < this.source.length() && Character.isWhitespace(this.source.charAt(this.pos))) {
+            this.pos++;
+        }
+    }
+
+    private IllegalArgumentException error(String message) {
+        return new IllegalArgumentException(message + " at position " + this.pos + " of: " + this.source);
+    }
+}
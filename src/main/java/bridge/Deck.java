@@ -1,50 +1,117 @@
 package bridge;
 
+import java.util.SplittableRandom;
+import java.util.random.RandomGenerator;
+
 public class Deck {
     /**
-     * Internal storage for the deck.
+     * Internal storage for the deck, as card indices (see {@link Card#index()}).
+     */
+    private final byte[] deck;
+
+    /**
+     * The position of the next card to deal. Cards before it have been dealt.
+     */
+    private int next;
+
+    /**
+     * The source of randomness for {@link #shuffle()}.
      */
-    private Card[] deck;
+    private final RandomGenerator random;
 
     /**
-     * Create a new deck.
+     * Create a new deck with its own random number generator.
      */
     public Deck() {
-        this.deck = new Card[52];
+        this(new SplittableRandom());
+    }
+
+    /**
+     * Create a new deck that shuffles with the given generator. Seeding the
+     * generator makes the sequence of deals reproducible.
+     *
+     * @param random the generator used by {@link #shuffle()}
+     */
+    public Deck(RandomGenerator random) {
+        this.deck = new byte[52];
+        this.random = random;
 
         int pos = 0;
         for (int r = 2; r <= Rules.ACE; r++) {
             for (int s = Rules.CLUBS; s <= Rules.SPADES; s++) {
-                this.deck[pos] = new Card(r, s);
+                this.deck[pos] = (byte) Card.of(r, s).index();
                 pos++;
             }
         }
     }
 
     /**
-     * Randomly shuffle the deck in-place.
+     * Return every dealt card to the deck, without changing the order.
+     */
+    public void reset() { this.next = 0; }
+
+    /**
+     * Return every dealt card to the deck and randomly shuffle it in-place,
+     * using the deck's generator.
+     */
+    public void shuffle() { this.shuffle(this.random); }
+
+    /**
+     * Return every dealt card to the deck and randomly shuffle it in-place.
      *
      * The shuffle algorithm is the Fisher-Yates shuffle (modified by
      * Durstenfeld).
      * @see <a href="https://en.wikipedia.org/wiki/Fisher-Yates_shuffle#The_modern_algorithm">
      *   Fisher-Yates shuffle on Wikipedia
      * </a>
+     *
+     * @param r the source of randomness
+     */
+    public void shuffle(RandomGenerator r) {
+        Deck.shuffle(this.deck, r);
+        this.next = 0;
+    }
+
+    /**
+     * Randomly shuffle an array in-place with the Fisher-Yates shuffle.
+     *
+     * @param a the array to shuffle
+     * @param r the source of randomness
      */
-    public void shuffle() {
+    static void shuffle(byte[] a, RandomGenerator r) {
         int j; // A random number for performing the shuffle
-        java.util.Random r = new java.util.Random();
-        Card temp; // A temporary variable for swapping values
+        byte temp; // A temporary variable for swapping values
 
-        for (int i = this.deck.length - 1; i > 0; i--) {
+        for (int i = a.length - 1; i > 0; i--) {
             j = r.nextInt(i + 1); // Generate a random integer in the range [0, i]
 
-            // Swap this.deck[i] and this.deck[j]
-            temp = this.deck[i];
-            this.deck[i] = this.deck[j];
-            this.deck[j] = temp;
+            // Swap a[i] and a[j]
+            temp = a[i];
+            a[i] = a[j];
+            a[j] = temp;
         }
     }
 
+    /**
+     * Get the number of cards that haven't been dealt.
+     *
+     * @return 0-52, inclusive
+     */
+    public int remaining() { return this.deck.length - this.next; }
+
+    /**
+     * Deal a single card.
+     *
+     * @return the top card of the deck
+     */
+    public Card next() {
+        if (this.next == this.deck.length) {
+            throw new IllegalStateException("No cards left to deal.");
+        }
+
+        return Card.of(this.deck[this.next++]);
+    }
+
     /**
      * Deal a specified number of cards and remove them from the deck.
      *
@@ -52,19 +119,35 @@ public class Deck {
      * @return an array of cards of length {@code number}
      */
     public Card[] deal(int number) {
-        if (number < 1 || number > this.deck.length) {
-            throw new IllegalArgumentException("Number of cards must between 1 and " + deck.length + ".");
-        }
+        this.checkDeal(number);
 
-        // Get the first n cards from the deck
         Card[] cards = new Card[number];
-        for (int i = 0; i < number; i++) { cards[i] = this.deck[i]; }
-
-        // Remove the dealt cards from the deck
-        Card[] newDeck = new Card[this.deck.length - number];
-        for (int i = number; i < this.deck.length; i++) { newDeck[i - number] = this.deck[i]; }
-        this.deck = newDeck;
+        for (int i = 0; i < number; i++) { cards[i] = Card.of(this.deck[this.next + i]); }
+        this.next += number;
 
         return cards;
     }
+
+    /**
+     * Deal a specified number of cards and remove them from the deck, without
+     * allocating.
+     *
+     * @param number the number of cards to deal
+     * @return the dealt cards as a bitboard (see {@link Hand})
+     */
+    public long dealHand(int number) {
+        this.checkDeal(number);
+
+        long hand = 0;
+        for (int i = 0; i < number; i++) { hand |= 1L << this.deck[this.next + i]; }
+        this.next += number;
+
+        return hand;
+    }
+
+    private void checkDeal(int number) {
+        if (number < 1 || number > this.remaining()) {
+            throw new IllegalArgumentException("Number of cards must between 1 and " + this.remaining() + ".");
+        }
+    }
 }
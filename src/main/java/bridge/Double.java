@@ -12,20 +12,22 @@ public class Double extends Call {
     }
 
     public Double(String doubleStr) {
-        doubleStr.toLowerCase();
+        int code = Notation.call(doubleStr);
 
         // Validate the input
-        if (!Call.isDouble(doubleStr)) {
-            throw new MalformedCallException();
+        if (!Call.isDouble(code)) {
+            throw new MalformedCallException(doubleStr);
         }
 
-        this.level = doubleStr.equals("x") ? Rules.DOUBLE : Rules.REDOUBLE;
+        this.level = code; // The codes of X and XX are their levels
     }
 
     public int level() {
         return this.level;
     }
 
+    public int code() { return this.level; } // The codes of X and XX are their levels
+
     public String toString() {
         if (this.level == Rules.DOUBLE) {
             return "X";
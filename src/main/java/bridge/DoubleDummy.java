@@ -0,0 +1,762 @@
+package bridge;
+
+/**
+ * A double-dummy solver: finds the number of tricks each side takes when
+ * every player can see every card and plays perfectly.
+ *
+ * The search is an alpha-beta search, run as a series of null-window searches
+ * for "can North/South take at least n tricks?", starting from a guess based
+ * on high-card points. Searches are cut off early using the tricks the
+ * leader's side can cash, the tricks the top trumps will win, and, in the
+ * middle of a trick, a side that needs only that trick holding its top card.
+ * Only one card of each sequence of equivalent cards in a hand is tried, and
+ * leads are tried first in suits where the opponents have few cards to reply
+ * with, which keeps the trees that fail small.
+ *
+ * Positions at the start of each trick are stored in a
+ * {@link TranspositionTable}. Along with each result, the search works out
+ * which cards it depended on: the cards that won a trick by beating another
+ * card of their suit, and the cards behind the cutoffs. Only the owners of
+ * those cards (and of every card above them in the same suit) are stored, so
+ * one entry answers for every position that differs only in the small cards.
+ *
+ * Hands are bitboards as described in {@link Hand}. A solver isn't
+ * thread-safe, but separate solvers can run in parallel, sharing a table or
+ * not.
+ */
+public class DoubleDummy {
+    /**
+     * The bits of a 7-bit value (the low 7 bits of the index) at the
+     * positions set in a 7-bit mask (the high 7 bits), packed together.
+     */
+    private static final byte[] COMPRESS = new byte[1 << 14];
+
+    static {
+        for (int mask = 0; mask < 1 << 7; mask++) {
+            for (int bits = 0; bits < 1 << 7; bits++) {
+                int packed = 0, n = 0;
+                for (int b = 0; b < 7; b++) {
+                    if ((mask >>> b & 1) != 0) { packed |= (bits >>> b & 1) << n++; }
+                }
+                COMPRESS[mask << 7 | bits] = (byte) packed;
+            }
+        }
+    }
+
+    private final TranspositionTable table;
+
+    /**
+     * The remaining cards of each seat.
+     */
+    private final long[] hands = new long[4];
+
+    private int trump;
+
+    /**
+     * The trump suit as a bitboard, or 0 in notrump.
+     */
+    private long trumps;
+
+    /**
+     * The cards played to the current trick.
+     */
+    private long onTable;
+
+    /**
+     * The suit lengths of the seats, 4 bits each, in bits
+     * {@code 4 * (4 * seat + suit)}.
+     */
+    private long lengths;
+
+    private long nodes;
+
+    /**
+     * Table statistics for the current search, added to the table's when it
+     * ends rather than on every probe.
+     */
+    private long hits, misses, collisions, overwrites;
+
+    /**
+     * The cards the result of the last call to {@link #trick} or
+     * {@link #play} depended on.
+     */
+    private long relevant;
+
+    /**
+     * Scratch space for the ordered moves at each depth, indexed by the
+     * number of cards left in the hands.
+     */
+    private final int[][] moves = new int[53][13];
+
+    /**
+     * The card that caused a cutoff on lead in the last search of a trick, or
+     * the best lead to try first when searching one.
+     */
+    private int bestLead;
+
+    /**
+     * The tricks {@link #cashable} found in each suit for the leader and
+     * partner, and the winners each depends on.
+     */
+    private final int[] ownTricks = new int[4], partnerTricks = new int[4];
+    private final long[] ownCards = new long[4], partnerCards = new long[4];
+
+    /**
+     * Create a solver with its own 32 MB table.
+     */
+    public DoubleDummy() {
+        this(new TranspositionTable(32));
+    }
+
+    /**
+     * Create a solver that stores positions in a table, which may be shared
+     * with other solvers running at the same time.
+     *
+     * @param table the table to store positions in
+     */
+    public DoubleDummy(TranspositionTable table) {
+        this.table = table;
+    }
+
+    /**
+     * Find the number of tricks declarer's side takes. Declarer is the
+     * player to the right of the leader.
+     *
+     * @param hands the bitboards of the four seats, indexed by seat, which
+     *              must all be the same size
+     * @param strain {@code Rules.CLUBS} to {@code Rules.NOTRUMP}
+     * @param leader the seat on lead, {@code Rules.NORTH} to
+     *               {@code Rules.WEST}
+     * @return the number of tricks taken by declarer and dummy
+     */
+    public int solve(long[] hands, int strain, int leader) {
+        int ns = this.solveNorthSouth(hands, strain, leader);
+        int declarer = (leader + 3) % 4;
+
+        return declarer % 2 == Rules.NORTH ? ns : Long.bitCount(hands[leader]) - ns;
+    }
+
+    /**
+     * Find the number of tricks North/South take.
+     *
+     * @param hands the bitboards of the four seats, indexed by seat, which
+     *              must all be the same size
+     * @param strain {@code Rules.CLUBS} to {@code Rules.NOTRUMP}
+     * @param leader the seat on lead
+     * @return the number of tricks taken by North and South
+     */
+    public int solveNorthSouth(long[] hands, int strain, int leader) {
+        int left = Long.bitCount(hands[leader]);
+        for (int seat = Rules.NORTH; seat <= Rules.WEST; seat++) {
+            if (Long.bitCount(hands[seat]) != left) {
+                throw new IllegalArgumentException("Every hand must have the same number of cards.");
+            }
+            if ((hands[seat] & hands[(seat + 1) % 4]) != 0 || (hands[seat] & hands[(seat + 2) % 4]) != 0) {
+                throw new IllegalArgumentException("A card is in more than one hand.");
+            }
+            this.hands[seat] = hands[seat];
+        }
+
+        this.trump = strain;
+        this.trumps = strain == Rules.NOTRUMP ? 0 : Hand.suitMask(strain);
+        this.onTable = 0;
+        this.lengths = 0;
+        for (int seat = Rules.NORTH; seat <= Rules.WEST; seat++) {
+            for (int s = Rules.CLUBS; s <= Rules.SPADES; s++) {
+                this.lengths |= (long) Hand.length(hands[seat], s) << (4 * (4 * seat + s));
+            }
+        }
+
+        // Null-window searches, starting from a guess based on North/South's
+        // high cards and moving one trick at a time, as the guess is usually
+        // right or off by one
+        int hcp = Hand.hcp(hands[Rules.NORTH] | hands[Rules.SOUTH]);
+        int tricks = Math.max(0, Math.min(left, (int) Math.round(left * (0.5 + (hcp - 20) / 39.0))));
+        if (this.trick(leader, tricks)) {
+            while (tricks < left && this.trick(leader, tricks + 1)) { tricks++; }
+        }
+        else {
+            do { tricks--; } while (tricks > 0 && !this.trick(leader, tricks));
+        }
+
+        this.table.record(this.hits, this.misses, this.collisions, this.overwrites);
+        this.hits = this.misses = this.collisions = this.overwrites = 0;
+
+        return tricks;
+    }
+
+    /**
+     * Get the number of positions searched since the solver was created.
+     *
+     * @return the number of cards played during searches
+     */
+    public long nodes() { return this.nodes; }
+
+    /**
+     * Check if North/South can take at least {@code target} of the remaining
+     * tricks, starting at the beginning of a trick.
+     *
+     * @param leader the seat on lead
+     * @param target the number of tricks North/South need
+     * @return {@code true} if North/South can take {@code target} tricks
+     */
+    private boolean trick(int leader, int target) {
+        int left = Long.bitCount(this.hands[leader]);
+        this.relevant = 0;
+        if (target <= 0)   { return true; }
+        if (target > left) { return false; }
+        if (left == 1)     { return this.lastTrick(leader) % 2 == Rules.NORTH; }
+
+        // The tricks the leader can cash bound the result
+        int quick = this.quickTricks(leader, leader % 2 == Rules.NORTH ? target : left - target + 1);
+        if (leader % 2 == Rules.NORTH ? quick >= target : left - quick < target) {
+            return leader % 2 == Rules.NORTH;
+        }
+
+        // Whoever holds the top trumps in one hand wins a trick with each
+        int trumpTricks = this.topTrumps(target, left - target + 1);
+        if (trumpTricks > 0 && target > left - trumpTricks) { return false; }
+        if (trumpTricks < 0 && target <= -trumpTricks)      { return true; }
+
+        long lengths = this.lengths;
+        long hi = this.owners(Rules.HEARTS) | this.owners(Rules.SPADES) << 26;
+        long lo = this.owners(Rules.CLUBS) | this.owners(Rules.DIAMONDS) << 26;
+        int entry = this.table.probe(lengths, this.trump, leader, hi, lo, target);
+        if ((entry & 3) != TranspositionTable.UNKNOWN) {
+            this.hits++;
+            this.relevant = this.topCards(entry >>> 2 & 0xFFFF);
+            return (entry & 3) == TranspositionTable.AT_LEAST;
+        }
+
+        this.misses++;
+        if ((entry & TranspositionTable.COLLISION) != 0) { this.collisions++; }
+        this.bestLead = (entry >>> 18 & 0x3F) - 1;
+        boolean result = this.play(leader, 0, -1, -1, -1, target);
+
+        int tops = this.tops(this.relevant);
+        int lower = result ? target : 0, upper = result ? left : target - 1;
+        if (this.table.store(lengths, this.trump, leader, hi, lo, tops, lower, upper, this.bestLead)) { this.overwrites++; }
+
+        return result;
+    }
+
+    /**
+     * Try every sensible card for one player in the current trick.
+     *
+     * @param seat the seat to play
+     * @param pos how many cards have been played to the trick
+     * @param ledSuit the suit led, or -1 if {@code pos} is 0
+     * @param winCard the index of the card winning the trick, or -1
+     * @param winSeat the seat that played {@code winCard}
+     * @param target the number of tricks North/South need, counting this one
+     * @return {@code true} if North/South can take {@code target} tricks
+     */
+    private boolean play(int seat, int pos, int ledSuit, int winCard, int winSeat, int target) {
+        long hand = this.hands[seat];
+        boolean maximize = seat % 2 == Rules.NORTH;
+
+        // Legal cards: any card on lead, otherwise the suit led if possible
+        long legal = Moves.legal(hand, pos > 0 ? ledSuit : Moves.LEAD);
+        long beats = 0;
+        if (pos > 0) {
+            // The cards that would take the lead in the trick
+            long winSuit = Hand.suitMask(winCard / 13);
+            beats = winSuit & -(1L << winCard << 1);
+            if ((winSuit & this.trumps) == 0) { beats |= this.trumps; }
+        }
+        int left = Long.bitCount(hand);
+        if ((pos == 1 || pos == 2) && (target == 1 || target == left)) {
+            // A side that needs only this trick and is sure to win it is done
+            int side = this.sureWinner(seat, pos, ledSuit, winCard, winSeat);
+            if (side == Rules.NORTH && target == 1)   { return true; }
+            if (side == Rules.EAST && target == left) { return false; }
+        }
+        legal = this.representatives(legal, hand);
+
+        int[] moves = this.moves[Long.bitCount(this.hands[0] | this.hands[1] | this.hands[2] | this.hands[3])];
+        int count;
+        if ((legal & legal - 1) == 0) { // Only one card to play
+            moves[0] = Long.numberOfTrailingZeros(legal);
+            count = 1;
+        }
+        else { count = this.order(seat, pos, legal, beats, ledSuit, winSeat, moves); }
+        if (pos == 0 && this.bestLead >= 0) { // Try the best lead from an earlier search first
+            for (int i = 0; i < count; i++) {
+                if ((moves[i] & 0xFF) == this.bestLead) {
+                    int m = moves[i];
+                    System.arraycopy(moves, 0, moves, 1, i);
+                    moves[0] = m;
+                    break;
+                }
+            }
+        }
+
+        long relevant = 0;
+        for (int i = 0; i < count; i++) {
+            int card = moves[i] & 0xFF;
+            long bit = 1L << card;
+
+            this.nodes++;
+            this.hands[seat] ^= bit;
+            this.lengths -= 1L << (4 * (4 * seat + card / 13));
+            this.onTable |= bit;
+
+            int newWinCard = winCard, newWinSeat = winSeat;
+            if ((bit & beats) != 0 || pos == 0) {
+                newWinCard = card;
+                newWinSeat = seat;
+            }
+
+            boolean result;
+            if (pos < 3) {
+                int led = pos == 0 ? card / 13 : ledSuit;
+                result = this.play((seat + 1) % 4, pos + 1, led, newWinCard, newWinSeat, target);
+            }
+            else { // The trick is complete
+                long played = this.onTable;
+                this.onTable = 0;
+                result = this.trick(newWinSeat, target - (newWinSeat % 2 == Rules.NORTH ? 1 : 0));
+                this.onTable = played;
+
+                // The rank of the winner matters if it beat a card of its suit
+                if (Long.bitCount(played & Hand.suitMask(newWinCard / 13)) > 1) { this.relevant |= 1L << newWinCard; }
+            }
+
+            this.onTable &= ~bit;
+            this.hands[seat] ^= bit;
+            this.lengths += 1L << (4 * (4 * seat + card / 13));
+
+            if (result == maximize) { // Cutoff
+                if (pos == 0) { this.bestLead = card; }
+                return result;
+            }
+            relevant |= this.relevant;
+        }
+
+        // The cards that weren't tried give the same result as the lowest
+        // card of their sequence, so they depend on it as it depends on them
+        this.relevant = this.closeSequences(relevant, hand);
+        if (pos == 0) { this.bestLead = -1; }
+        return !maximize;
+    }
+
+    /**
+     * Count the top trumps held in one hand, which each win a trick, and set
+     * {@link #relevant} to them. Counting stops once it reaches the number
+     * needed for a cutoff.
+     *
+     * @param northSouth the number needed if North or South holds them
+     * @param eastWest the number needed if East or West holds them
+     * @return the number of trumps, negated if North or South holds them,
+     *         or 0 in notrump
+     */
+    private int topTrumps(int northSouth, int eastWest) {
+        long live = (this.hands[0] | this.hands[1] | this.hands[2] | this.hands[3]) & this.trumps;
+        if (live == 0) { return 0; }
+
+        long top = Long.highestOneBit(live);
+        int seat = Rules.NORTH;
+        while ((this.hands[seat] & top) == 0) { seat++; }
+
+        int need = seat % 2 == Rules.NORTH ? northSouth : eastWest;
+        int count = 0;
+        long cards = 0;
+        for ( ; count < need && (this.hands[seat] & top) != 0; count++) {
+            cards |= top;
+            live ^= top;
+            top = Long.highestOneBit(live);
+        }
+        this.relevant = cards;
+
+        return seat % 2 == Rules.NORTH ? -count : count;
+    }
+
+    /**
+     * Sort the candidate cards so that the likeliest best plays are tried
+     * first.
+     *
+     * @param seat the seat to play
+     * @param pos how many cards have been played to the trick
+     * @param cards the candidate cards
+     * @param beats the cards that would take the lead in the trick
+     * @param ledSuit the suit led, or -1 if {@code pos} is 0
+     * @param winSeat the seat winning the trick, or -1
+     * @param out the array to fill with the sorted cards, each shifted left
+     *            by 8 bits over its weight
+     * @return the number of cards
+     */
+    private int order(int seat, int pos, long cards, long beats, int ledSuit, int winSeat, int[] out) {
+        long hand = this.hands[seat];
+        long partner = this.hands[(seat + 2) % 4];
+        long lho = this.hands[(seat + 1) % 4], rho = this.hands[(seat + 3) % 4];
+        long live = hand | partner | lho | rho;
+
+        int count = 0;
+        for (long m = cards; m != 0; m &= m - 1) {
+            int card = Long.numberOfTrailingZeros(m);
+            int suit = card / 13, rank = card % 13;
+            long suitMask = Hand.suitMask(suit);
+            long above = live & suitMask & -(1L << card << 1); // Live cards higher than this one
+            boolean trump = (suitMask & this.trumps) != 0;
+            int weight;
+
+            if (pos == 0) {
+                boolean ruffable = !trump && ((lho & suitMask) == 0 && (lho & this.trumps) != 0 ||
+                                              (rho & suitMask) == 0 && (rho & this.trumps) != 0);
+                long top = Long.highestOneBit(live & suitMask);
+                if (above == 0) { // A winner
+                    weight = ruffable ? 10 : 60 + rank;
+                }
+                else if ((partner & top) != 0) { // Partner wins, lead low to them
+                    weight = 50 - rank;
+                }
+                else if (!trump && (partner & suitMask) == 0 && (partner & this.trumps) != 0 && !ruffable) {
+                    weight = 45 - rank; // Partner ruffs
+                }
+                else {
+                    weight = 20 + Long.bitCount(hand & suitMask) - rank;
+                }
+
+                // The more cards the opponents can play to the suit, the more
+                // replies there are to search, so prefer suits they are short
+                // in (a void counts as long, as it opens up all their discards)
+                int left = Long.bitCount(hand);
+                int lhoLength = Long.bitCount(lho & suitMask), rhoLength = Long.bitCount(rho & suitMask);
+                weight -= 12 * ((lhoLength == 0 ? left : lhoLength) + (rhoLength == 0 ? left : rhoLength));
+            }
+            else {
+                long bit = 1L << card;
+                long led = Hand.suitMask(ledSuit);
+                long opponent = pos == 3 ? 0 : lho; // The opponent still to play, if any
+                boolean follows = (opponent & led) != 0;
+                boolean partnerSafe = winSeat % 2 == seat % 2 &&
+                                      (opponent & (follows ? led : this.trumps) & beats) == 0;
+                if ((bit & beats) != 0 && !partnerSafe) {
+                    // Win the trick, best with a card the opponent can't beat
+                    long higher = -(bit << 1);
+                    boolean safe = suit == ledSuit ? (opponent & (follows ? led & higher : this.trumps)) == 0
+                                                   : follows || (opponent & this.trumps & higher) == 0;
+                    weight = (safe ? 90 : 50) - rank;
+                }
+                else if (suit == ledSuit) {
+                    weight = 40 - rank;
+                }
+                else if (!trump) { // A discard, from a long suit
+                    weight = 30 + Long.bitCount(hand & suitMask) - rank;
+                }
+                else { // A ruff that isn't needed or doesn't win
+                    weight = 10 - rank;
+                }
+            }
+
+            // Insert the card in order of decreasing weight
+            int entry = (weight + 64) << 8 | card;
+            int i = count++;
+            for ( ; i > 0 && out[i - 1] < entry; i--) { out[i] = out[i - 1]; }
+            out[i] = entry;
+        }
+
+        return count;
+    }
+
+    /**
+     * Play out the final trick, where every player has one card, and set
+     * {@link #relevant} to the winner if it beat a card of its suit.
+     *
+     * @param leader the seat on lead
+     * @return the seat that wins the trick
+     */
+    private int lastTrick(int leader) {
+        int winSeat = leader;
+        long win = this.hands[leader];
+        boolean byRank = false;
+        for (int i = 1; i < 4; i++) {
+            int seat = (leader + i) % 4;
+            long c = this.hands[seat];
+            boolean sameSuit = Long.numberOfTrailingZeros(c) / 13 == Long.numberOfTrailingZeros(win) / 13;
+            if (sameSuit ? c > win : (c & this.trumps) != 0) {
+                win = c;
+                winSeat = seat;
+            }
+            byRank |= sameSuit;
+        }
+        this.relevant = byRank ? win : 0;
+
+        return winSeat;
+    }
+
+    /**
+     * Keep only the lowest card of each sequence of cards in a hand that
+     * are equivalent, because no card held by another player (remaining or
+     * on the table) lies between them.
+     *
+     * @param cards the candidate cards
+     * @param hand the hand holding them
+     * @return one card from each sequence in {@code cards}
+     */
+    private long representatives(long cards, long hand) {
+        long live = this.hands[0] | this.hands[1] | this.hands[2] | this.hands[3] | this.onTable;
+
+        return Moves.collapse(cards, hand, live);
+    }
+
+    /**
+     * Add the lowest card of the sequence of every card of a hand in a set.
+     *
+     * @param cards the set of cards
+     * @param hand the hand whose sequences are filled in
+     * @return {@code cards} with the lowest cards added
+     */
+    private long closeSequences(long cards, long hand) {
+        long live = this.hands[0] | this.hands[1] | this.hands[2] | this.hands[3] | this.onTable;
+
+        for (long m = cards & hand; m != 0; m &= m - 1) {
+            long bit = m & -m;
+            long suit = Hand.suitMask(Long.numberOfTrailingZeros(bit) / 13);
+            for (long next = Long.highestOneBit(live & suit & (bit - 1)); (next & hand) != 0;
+                 next = Long.highestOneBit(live & suit & (bit - 1))) {
+                bit = next;
+            }
+            cards |= bit;
+        }
+
+        return cards;
+    }
+
+    /**
+     * Find the side sure to win the current trick with the highest card
+     * left in the suit led, whatever the players still to play do, and set
+     * {@link #relevant} to that card.
+     *
+     * @param seat the seat to play
+     * @param pos how many cards have been played to the trick, 1 or 2
+     * @param ledSuit the suit led
+     * @param winCard the index of the card winning the trick
+     * @param winSeat the seat that played {@code winCard}
+     * @return {@code Rules.NORTH} for North/South, {@code Rules.EAST} for
+     *         East/West, or -1 if neither side is sure of the trick
+     */
+    private int sureWinner(int seat, int pos, int ledSuit, int winCard, int winSeat) {
+        if (winCard / 13 != ledSuit) { return -1; } // Already ruffed
+        long led = Hand.suitMask(ledSuit);
+        long live = (this.hands[0] | this.hands[1] | this.hands[2] | this.hands[3] | this.onTable) & led;
+        long top = Long.highestOneBit(live);
+
+        // The card must be winning already, or held by a player still to play
+        int side = top == 1L << winCard ? winSeat % 2 : -1;
+        for (int p = pos, s = seat; p < 4; p++, s = (s + 1) % 4) {
+            if ((this.hands[s] & top) != 0) { side = s % 2; }
+        }
+        if (side < 0) { return -1; }
+
+        // Unless trumps were led, an opponent still to play mustn't be able to ruff
+        if ((led & this.trumps) == 0) {
+            for (int p = pos, s = seat; p < 4; p++, s = (s + 1) % 4) {
+                if (s % 2 != side && (this.hands[s] & led) == 0 && (this.hands[s] & this.trumps) != 0) { return -1; }
+            }
+        }
+
+        this.relevant = top;
+        return side;
+    }
+
+    /**
+     * Count the tricks the leader's side can take by cashing winners without
+     * any being ruffed: the leader's own, partner's after leading to one of
+     * them, or the leader's and then partner's when partner has enough
+     * losers to throw on the leader's. If that makes a cutoff, sets
+     * {@link #relevant} to the winners it takes.
+     *
+     * @param leader the seat on lead
+     * @param need the number of tricks needed for a cutoff
+     * @return a lower bound on the tricks the leader's side takes
+     */
+    private int quickTricks(int leader, int need) {
+        int mate = (leader + 2) % 4;
+        int own = this.cashable(leader, this.ownTricks, this.ownCards);
+        if (own >= need) {
+            this.relevant = this.winners(this.ownTricks, this.ownCards, need, -1);
+            return own;
+        }
+
+        int partner = this.cashable(mate, this.partnerTricks, this.partnerCards);
+        if (partner == 0) { return own; }
+
+        // An entry: a suit whose first trick partner wins that the leader can lead
+        int entry = -1;
+        for (int s = Rules.CLUBS; s <= Rules.SPADES; s++) {
+            if (this.partnerTricks[s] > 0 && Hand.hasSuit(this.hands[leader], s)) { entry = s; }
+        }
+        if (entry < 0) { return own; }
+
+        // Cash the leader's winners first, as long as partner has losers to throw on them
+        int discards = 0;
+        for (int s = Rules.CLUBS; s <= Rules.SPADES; s++) {
+            discards += Math.max(0, this.ownTricks[s] - Hand.length(this.hands[mate], s));
+        }
+        if (discards <= Long.bitCount(this.hands[mate]) - partner) {
+            if (own + partner >= need) {
+                this.relevant = this.winners(this.ownTricks, this.ownCards, own, -1) |
+                                this.winners(this.partnerTricks, this.partnerCards, need - own, entry);
+            }
+            return own + partner;
+        }
+        if (partner > own) {
+            if (partner >= need) { this.relevant = this.winners(this.partnerTricks, this.partnerCards, need, entry); }
+            return partner;
+        }
+
+        return own;
+    }
+
+    /**
+     * Choose the winners of enough suits to make up a number of tricks.
+     *
+     * @param tricks the tricks of each suit
+     * @param cards the winners the tricks of each suit depend on
+     * @param need the number of tricks
+     * @param first a suit to take first, or -1
+     * @return the winners of the suits chosen
+     */
+    private long winners(int[] tricks, long[] cards, int need, int first) {
+        long chosen = 0;
+        int n = 0;
+        if (first >= 0) {
+            chosen = cards[first];
+            n = tricks[first];
+        }
+        for (int s = Rules.SPADES; s >= Rules.CLUBS && n < need; s--) {
+            if (s != first && tricks[s] > 0) {
+                chosen |= cards[s];
+                n += tricks[s];
+            }
+        }
+
+        return chosen;
+    }
+
+    /**
+     * Count the winners a seat can cash in each suit without any being
+     * ruffed: its top cards, and its small cards too when the top cards
+     * leave the other hands out of the suit.
+     *
+     * @param seat the seat on lead
+     * @param out the array to fill with the tricks in each suit
+     * @param winners the array to fill with the top cards each suit's tricks
+     *                depend on
+     * @return the number of tricks in all suits
+     */
+    private int cashable(int seat, int[] out, long[] winners) {
+        long own = this.hands[seat];
+        long lho = this.hands[(seat + 1) % 4], rho = this.hands[(seat + 3) % 4];
+        long live = own | lho | rho | this.hands[(seat + 2) % 4];
+        boolean lhoRuffs = (lho & this.trumps) != 0, rhoRuffs = (rho & this.trumps) != 0;
+
+        int tricks = 0;
+        for (int s = Rules.CLUBS; s <= Rules.SPADES; s++) {
+            out[s] = 0;
+            winners[s] = 0;
+            int held = Hand.length(own, s);
+            long rest = live & Hand.suitMask(s);
+            if (held == 0 || (own & Long.highestOneBit(rest)) == 0) { continue; }
+
+            // Outside trumps, stop before an opponent can ruff
+            int length = held;
+            boolean ruffable = s != this.trump && (lhoRuffs || rhoRuffs);
+            if (ruffable) {
+                if (lhoRuffs) { length = Math.min(length, Hand.length(lho, s)); }
+                if (rhoRuffs) { length = Math.min(length, Hand.length(rho, s)); }
+            }
+
+            // Count the top cards of the suit held by the seat
+            int top = 0;
+            long cards = 0;
+            for ( ; top < length && (own & Long.highestOneBit(rest)) != 0; top++) {
+                cards |= Long.highestOneBit(rest);
+                rest ^= Long.highestOneBit(rest);
+            }
+
+            // Once the others are out of the suit, the seat's small cards win too
+            if (!ruffable && top < held && (own & Long.highestOneBit(rest)) == 0 &&
+                top >= Math.max(Hand.length(lho, s), Hand.length(rho, s)) &&
+                top >= Hand.length(this.hands[(seat + 2) % 4], s)) {
+                top = held;
+            }
+            out[s] = top;
+            winners[s] = cards;
+            tricks += top;
+        }
+
+        return tricks;
+    }
+
+    /**
+     * Encode who holds each remaining card of a suit, as two 13-bit planes:
+     * bit 0 of the seats in bits 0-12 and bit 1 in bits 13-25. In each plane,
+     * the highest card is bit 12, the next highest bit 11, and so on.
+     *
+     * @param suit the suit
+     * @return the owners
+     */
+    private long owners(int suit) {
+        int live = Hand.holding(this.hands[Rules.NORTH] | this.hands[Rules.EAST] |
+                                this.hands[Rules.SOUTH] | this.hands[Rules.WEST], suit);
+        int low = DoubleDummy.compress(live, Hand.holding(this.hands[Rules.EAST] | this.hands[Rules.WEST], suit));
+        int high = DoubleDummy.compress(live, Hand.holding(this.hands[Rules.SOUTH] | this.hands[Rules.WEST], suit));
+        int shift = 13 - Integer.bitCount(live);
+
+        return (long) (low << shift) | (long) (high << shift) << 13;
+    }
+
+    /**
+     * Pack the bits of a holding at the positions of the live cards into the
+     * low bits, in order.
+     */
+    private static int compress(int live, int bits) {
+        return COMPRESS[(live & 0x7F) << 7 | bits & 0x7F] |
+               COMPRESS[(live >>> 7) << 7 | bits >>> 7] << Integer.bitCount(live & 0x7F);
+    }
+
+    /**
+     * Count how many of the top cards of each suit a set of cards reaches
+     * down to.
+     *
+     * @param cards the set of cards
+     * @return the number of cards of each suit from the highest down to the
+     *         lowest one in the set, 4 bits per suit starting with clubs
+     */
+    private int tops(long cards) {
+        long live = this.hands[0] | this.hands[1] | this.hands[2] | this.hands[3];
+
+        int tops = 0;
+        for (int s = Rules.CLUBS; s <= Rules.SPADES; s++) {
+            long suit = live & Hand.suitMask(s);
+            long lowest = cards & suit & -(cards & suit);
+            if (lowest != 0) { tops |= Long.bitCount(suit & -lowest) << (4 * s); }
+        }
+
+        return tops;
+    }
+
+    /**
+     * Get the top cards of each suit.
+     *
+     * @param tops the number of cards of each suit, as returned by
+     *             {@link #tops}
+     * @return the cards
+     */
+    private long topCards(int tops) {
+        long live = this.hands[0] | this.hands[1] | this.hands[2] | this.hands[3];
+
+        long cards = 0;
+        for (int s = Rules.CLUBS; s <= Rules.SPADES; s++) {
+            long suit = live & Hand.suitMask(s);
+            for (int n = tops >>> (4 * s) & 0xF; n > 0; n--) {
+                cards |= Long.highestOneBit(suit);
+                suit ^= Long.highestOneBit(suit);
+            }
+        }
+
+        return cards;
+    }
+}
@@ -0,0 +1,154 @@
+package bridge;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+/**
+ * Computes the double-dummy table of a deal: the tricks each of the four
+ * declarers takes in each of the five strains.
+ *
+ * The 20 results are solved as separate tasks on the common fork-join pool,
+ * all storing positions in one {@link TranspositionTable}. The declarers of
+ * a strain meet many of the same positions, so whichever task reaches a
+ * position first saves the others the work. Entries don't depend on the
+ * deal, so they stay useful from one deal to the next.
+ *
+ * Results are indexed by {@link #index(int, int)}.
+ */
+public final class DoubleDummyTable {
+    /**
+     * The number of results in a table.
+     */
+    public static final int SIZE = 20;
+
+    /**
+     * The table used when none is given, created when first needed.
+     */
+    private static final class Shared {
+        static final TranspositionTable TABLE = new TranspositionTable(256);
+    }
+
+    private DoubleDummyTable() {} // A DoubleDummyTable object should never be instantiated
+
+    /**
+     * Get the position of a result in a table.
+     *
+     * @param strain {@code Rules.CLUBS} to {@code Rules.NOTRUMP}
+     * @param declarer {@code Rules.NORTH} to {@code Rules.WEST}
+     * @return 0-19, inclusive
+     */
+    public static int index(int strain, int declarer) { return 4 * strain + declarer; }
+
+    /**
+     * Solve a deal in every strain for every declarer, with a shared 256 MB
+     * table.
+     *
+     * @param hands the bitboards of the four seats, indexed by seat, which
+     *              must all be the same size
+     * @return the tricks taken by declarer, indexed by {@link #index}
+     */
+    public static int[] solve(long[] hands) {
+        int[] results = new int[SIZE];
+        DoubleDummyTable.solve(hands, results, Shared.TABLE);
+
+        return results;
+    }
+
+    /**
+     * Solve a deal in every strain for every declarer.
+     *
+     * @param hands the bitboards of the four seats, indexed by seat, which
+     *              must all be the same size
+     * @param results the array to fill with the tricks taken by declarer,
+     *                indexed by {@link #index}
+     * @param table the table to store positions in
+     */
+    public static void solve(long[] hands, int[] results, TranspositionTable table) {
+        table.nextGeneration();
+
+        IntStream.range(0, SIZE).parallel().forEach(i -> {
+            int strain = i / 4, declarer = i % 4;
+            results[i] = DoubleDummyTable.solve(hands, strain, declarer, table);
+        });
+    }
+
+    /**
+     * Solve many deals, with a shared 256 MB table.
+     *
+     * @param deals packed deals (see {@link Deal})
+     * @param count the number of deals
+     * @return {@code count * SIZE} bytes: the results of each deal in turn
+     */
+    public static byte[] solveAll(byte[] deals, int count) {
+        return DoubleDummyTable.solveAll(deals, count, Shared.TABLE);
+    }
+
+    /**
+     * Solve many deals. Every result of every deal is a separate task, and
+     * idle threads steal tasks from busy ones, so every core stays busy
+     * until the last few results. A deal that appears more than once, as
+     * boards from several tables of an event do, is solved once.
+     *
+     * @param deals packed deals (see {@link Deal})
+     * @param count the number of deals
+     * @param table the table to store positions in
+     * @return {@code count * SIZE} bytes: the results of each deal in turn
+     */
+    public static byte[] solveAll(byte[] deals, int count, TranspositionTable table) {
+        byte[] results = new byte[Math.multiplyExact(count, SIZE)];
+        int[] first = DoubleDummyTable.first(deals, count);
+        int[] unique = IntStream.range(0, count).filter(deal -> first[deal] == deal).toArray();
+        table.nextGeneration();
+
+        // Tasks go deal by deal, so the declarers of a deal are solved at
+        // about the same time and share their positions
+        IntStream.range(0, unique.length * SIZE).parallel().forEach(i -> {
+            int deal = unique[i / SIZE], strain = i % SIZE / 4, declarer = i % 4;
+            long[] hands = new long[4];
+            Deal.unpack(deals, deal * Deal.BYTES, hands);
+
+            results[deal * SIZE + i % SIZE] = (byte) DoubleDummyTable.solve(hands, strain, declarer, table);
+        });
+
+        for (int deal = 0; deal < count; deal++) {
+            if (first[deal] != deal) { System.arraycopy(results, first[deal] * SIZE, results, deal * SIZE, SIZE); }
+        }
+
+        return results;
+    }
+
+    /**
+     * Find the first copy of each deal, by the {@link Zobrist} keys of the
+     * deals.
+     *
+     * @return the position of the first copy of each deal, which is the
+     *         deal's own position if it is the first
+     */
+    private static int[] first(byte[] deals, int count) {
+        Map<Long, Integer> seen = new HashMap<>();
+        int[] first = new int[count];
+
+        long[] hands = new long[4];
+        for (int deal = 0; deal < count; deal++) {
+            Deal.unpack(deals, deal * Deal.BYTES, hands);
+            Integer other = seen.putIfAbsent(Zobrist.hash(hands, Rules.NORTH, 0), deal);
+
+            // A different deal with the same key is solved on its own
+            boolean same = other != null
+                && Arrays.equals(deals, other * Deal.BYTES, (other + 1) * Deal.BYTES,
+                                 deals, deal * Deal.BYTES, (deal + 1) * Deal.BYTES);
+            first[deal] = same ? other : deal;
+        }
+
+        return first;
+    }
+
+    /**
+     * Solve one strain for one declarer.
+     */
+    private static int solve(long[] hands, int strain, int declarer, TranspositionTable table) {
+        return new DoubleDummy(table).solve(hands, strain, (declarer + 1) % 4);
+    }
+}
@@ -0,0 +1,145 @@
+package bridge;
+
+import java.util.Arrays;
+
+/**
+ * Duplicate scoring: the score of a result at one table, and its comparison
+ * with the results of the same board at other tables, in IMPs or
+ * matchpoints.
+ *
+ * A duplicate score is {@link Contract#score(int)}, whose table already
+ * holds the 50 for a made partscore.
+ */
+public final class Duplicate {
+    public static final int NONE        = 0;
+    public static final int NORTH_SOUTH = 1;
+    public static final int EAST_WEST   = 2;
+    public static final int BOTH        = 3;
+
+    /**
+     * The vulnerability of boards 1-16, which repeats every 16 boards.
+     */
+    private static final int[] VULNERABILITY = {
+        NONE, NORTH_SOUTH, EAST_WEST, BOTH, NORTH_SOUTH, EAST_WEST, BOTH, NONE,
+        EAST_WEST, BOTH, NONE, NORTH_SOUTH, BOTH, NONE, NORTH_SOUTH, EAST_WEST
+    };
+
+    /**
+     * The smallest difference worth each number of IMPs from 1 to 24.
+     */
+    private static final int[] IMPS = {
+        20, 50, 90, 130, 170, 220, 270, 320, 370, 430, 500, 600,
+        750, 900, 1100, 1300, 1500, 1750, 2000, 2250, 2500, 3000, 3500, 4000
+    };
+
+    private Duplicate() {} // A Duplicate object should never be instantiated
+
+    /**
+     * Get the dealer of a board.
+     *
+     * @param board the board number, from 1
+     * @return {@code Rules.NORTH} to {@code Rules.WEST}
+     */
+    public static int dealer(int board) { return (board - 1) % 4; }
+
+    /**
+     * Get the vulnerability of a board.
+     *
+     * @param board the board number, from 1
+     * @return {@code Duplicate.NONE}, {@code Duplicate.NORTH_SOUTH},
+     *         {@code Duplicate.EAST_WEST}, or {@code Duplicate.BOTH}
+     */
+    public static int vulnerability(int board) { return VULNERABILITY[(board - 1) % 16]; }
+
+    /**
+     * Check if a seat is vulnerable.
+     *
+     * @param vulnerability {@code Duplicate.NONE} to {@code Duplicate.BOTH}
+     * @param seat {@code Rules.NORTH} to {@code Rules.WEST}
+     * @return {@code true} if the seat's side is vulnerable
+     */
+    public static boolean isVulnerable(int vulnerability, int seat) {
+        return (vulnerability >> (seat % 2) & 1) != 0; // Bit 0 is North/South, bit 1 East/West
+    }
+
+    /**
+     * Find declarer's duplicate score, which is a single table lookup.
+     *
+     * @param contract the contract, which knows its vulnerability
+     * @param made the number of tricks declarer took, 0-13
+     * @return declarer's score
+     */
+    public static int score(Contract contract, int made) { return contract.score(made); }
+
+    /**
+     * Check if a contract is worth the game bonus when made.
+     *
+     * @param contract the contract
+     * @return {@code true} if its contract points are 100 or more
+     */
+    public static boolean isGame(Contract contract) {
+        return Contract.contractPoints(contract.rank(), contract.strain(), contract.doubled()) >= 100;
+    }
+
+    /**
+     * Convert a difference in score to IMPs.
+     *
+     * @param difference the difference between two scores
+     * @return -24 to 24, inclusive, with the sign of {@code difference}
+     */
+    public static int imps(int difference) {
+        int i = Arrays.binarySearch(IMPS, Math.abs(difference));
+        int imps = i >= 0 ? i + 1 : -i - 1; // The number of thresholds reached
+
+        return difference < 0 ? -imps : imps;
+    }
+
+    /**
+     * Convert many differences in score to IMPs.
+     *
+     * @param differences the differences between pairs of scores
+     * @param out the array to fill with the IMPs of each difference
+     */
+    public static void imps(int[] differences, int[] out) {
+        for (int i = 0; i < differences.length; i++) {
+            out[i] = Duplicate.imps(differences[i]);
+        }
+    }
+
+    /**
+     * Matchpoint the results of one board: every result scores 2 for each
+     * other result it beats and 1 for each it ties with. The scores are
+     * sorted once and each result is placed by binary search, so the whole
+     * board takes O(n log n).
+     *
+     * @param scores the scores of one side (say North/South) at each table
+     * @param out the array to fill with each result's matchpoints, counted
+     *            in half-matchpoints so they stay whole numbers; a top is
+     *            {@code 2 * (scores.length - 1)}
+     */
+    public static void matchpoints(int[] scores, int[] out) {
+        int[] sorted = scores.clone();
+        Arrays.sort(sorted);
+
+        for (int i = 0; i < scores.length; i++) {
+            int below = Duplicate.lowerBound(sorted, scores[i]);
+            int notAbove = Duplicate.lowerBound(sorted, scores[i] + 1);
+
+            out[i] = 2 * below + (notAbove - below - 1); // Don't count the result itself as a tie
+        }
+    }
+
+    /**
+     * Find the number of values in a sorted array smaller than a key.
+     */
+    private static int lowerBound(int[] sorted, int key) {
+        int lo = 0, hi = sorted.length;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (sorted[mid] < key) { lo = mid + 1; }
+            else { hi = mid; }
+        }
+
+        return lo;
+    }
+}
@@ -0,0 +1,187 @@
+package bridge;
+
+/**
+ * Evaluates hands with tables indexed by the 13-bit holding of a suit (see
+ * {@link Hand#holding}), instead of looking at cards one at a time.
+ *
+ * The counts that add up over the four suits (high-card points, controls,
+ * losers and quick tricks) are packed into one {@code int} per holding, a
+ * byte each, and no sum over a 13-card hand overflows its byte. Evaluating
+ * a hand is then four table loads and three additions, after which any of
+ * the counts can be taken out with a shift and a mask.
+ */
+public final class Evaluator {
+    /**
+     * The positions of the counts in a packed evaluation.
+     */
+    private static final int HCP = 0;
+    private static final int CONTROLS = 8;
+    private static final int LOSERS = 16;
+    private static final int QUICK_TRICKS = 24;
+
+    /**
+     * The bits of the top cards of a holding.
+     */
+    private static final int ACE   = 1 << 12;
+    private static final int KING  = 1 << 11;
+    private static final int QUEEN = 1 << 10;
+    private static final int JACK  = 1 << 9;
+    private static final int TEN   = 1 << 8;
+
+    /**
+     * The packed counts of each holding.
+     */
+    private static final int[] COUNTS = new int[Hand.HOLDING + 1];
+
+    /**
+     * The suit quality of each holding.
+     */
+    private static final byte[] QUALITY = new byte[Hand.HOLDING + 1];
+
+    static {
+        for (int holding = 0; holding <= Hand.HOLDING; holding++) {
+            COUNTS[holding] = Evaluator.hcpOf(holding) << HCP | Evaluator.controlsOf(holding) << CONTROLS |
+                              Evaluator.losersOf(holding) << LOSERS |
+                              Evaluator.quickTricksOf(holding) << QUICK_TRICKS;
+            QUALITY[holding] = (byte) (Integer.bitCount(holding) +
+                                       Integer.bitCount(holding & (ACE | KING | QUEEN | JACK | TEN)));
+        }
+    }
+
+    private Evaluator() {} // An Evaluator object should never be instantiated
+
+    /**
+     * Evaluate a hand, for reading with {@link #hcp(int)},
+     * {@link #controls(int)}, {@link #losers(int)} and
+     * {@link #quickTricks(int)}.
+     *
+     * @param hand the hand, as a bitboard (see {@link Hand})
+     * @return the packed counts
+     */
+    public static int evaluate(long hand) {
+        return COUNTS[(int) hand & Hand.HOLDING] + COUNTS[(int) (hand >>> 13) & Hand.HOLDING] +
+               COUNTS[(int) (hand >>> 26) & Hand.HOLDING] + COUNTS[(int) (hand >>> 39) & Hand.HOLDING];
+    }
+
+    /**
+     * Get the packed counts of a single suit holding.
+     *
+     * @param holding a 13-bit holding
+     * @return the packed counts
+     */
+    public static int evaluateHolding(int holding) { return COUNTS[holding]; }
+
+    /**
+     * Get the high-card points of an evaluation: 4 for each ace, 3 for each
+     * king, 2 for each queen and 1 for each jack.
+     *
+     * @param counts the packed counts
+     * @return 0-37, inclusive, for a 13-card hand
+     */
+    public static int hcp(int counts) { return counts >>> HCP & 0xFF; }
+
+    /**
+     * Get the controls of an evaluation: 2 for each ace and 1 for each king.
+     *
+     * @param counts the packed counts
+     * @return 0-12, inclusive
+     */
+    public static int controls(int counts) { return counts >>> CONTROLS & 0xFF; }
+
+    /**
+     * Get the losing trick count of an evaluation. A suit of length
+     * {@code n} has a loser for each of the top {@code min(n, 3)} of the
+     * ace, king and queen it doesn't hold.
+     *
+     * @param counts the packed counts
+     * @return 0-12, inclusive
+     */
+    public static int losers(int counts) { return counts >>> LOSERS & 0xFF; }
+
+    /**
+     * Get the quick tricks of an evaluation, in half tricks: 4 for AK, 3 for
+     * AQ, 2 for A or KQ, and 1 for K with another card, in each suit.
+     *
+     * @param counts the packed counts
+     * @return 0-16, inclusive, half tricks
+     */
+    public static int quickTricks(int counts) { return counts >>> QUICK_TRICKS & 0xFF; }
+
+    /**
+     * Count the high-card points of a hand.
+     *
+     * @param hand the hand, as a bitboard
+     * @return 0-37, inclusive, for a 13-card hand
+     * @see #hcp(int)
+     */
+    public static int hcp(long hand) { return Evaluator.hcp(Evaluator.evaluate(hand)); }
+
+    /**
+     * Count the controls of a hand.
+     *
+     * @param hand the hand, as a bitboard
+     * @return 0-12, inclusive
+     * @see #controls(int)
+     */
+    public static int controls(long hand) { return Evaluator.controls(Evaluator.evaluate(hand)); }
+
+    /**
+     * Count the losers of a hand.
+     *
+     * @param hand the hand, as a bitboard
+     * @return 0-12, inclusive
+     * @see #losers(int)
+     */
+    public static int losers(long hand) { return Evaluator.losers(Evaluator.evaluate(hand)); }
+
+    /**
+     * Count the quick tricks of a hand, in half tricks.
+     *
+     * @param hand the hand, as a bitboard
+     * @return 0-16, inclusive, half tricks
+     * @see #quickTricks(int)
+     */
+    public static int quickTricks(long hand) { return Evaluator.quickTricks(Evaluator.evaluate(hand)); }
+
+    /**
+     * Get the suit quality of a suit in a hand: its length plus the number
+     * of its top five cards held.
+     *
+     * @param hand the hand, as a bitboard
+     * @param suit {@code Rules.CLUBS} to {@code Rules.SPADES}
+     * @return 0-18, inclusive
+     */
+    public static int quality(long hand, int suit) { return QUALITY[Hand.holding(hand, suit)]; }
+
+    private static int hcpOf(int holding) {
+        return 4 * Evaluator.count(holding, ACE) + 3 * Evaluator.count(holding, KING) +
+               2 * Evaluator.count(holding, QUEEN) + Evaluator.count(holding, JACK);
+    }
+
+    private static int controlsOf(int holding) {
+        return 2 * Evaluator.count(holding, ACE) + Evaluator.count(holding, KING);
+    }
+
+    private static int losersOf(int holding) {
+        int top = Math.min(3, Integer.bitCount(holding));
+
+        // A singleton king and doubleton queen are still losers
+        int losers = top;
+        if (top >= 1) { losers -= Evaluator.count(holding, ACE); }
+        if (top >= 2) { losers -= Evaluator.count(holding, KING); }
+        if (top >= 3) { losers -= Evaluator.count(holding, QUEEN); }
+
+        return losers;
+    }
+
+    private static int quickTricksOf(int holding) {
+        boolean ace = (holding & ACE) != 0, king = (holding & KING) != 0, queen = (holding & QUEEN) != 0;
+        if (ace && king) { return 4; }
+        if (ace && queen) { return 3; }
+        if (ace || (king && queen)) { return 2; }
+
+        return king && Integer.bitCount(holding) >= 2 ? 1 : 0;
+    }
+
+    private static int count(int holding, int bit) { return (holding & bit) != 0 ? 1 : 0; }
+}
@@ -0,0 +1,413 @@
+package bridge;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A hand of bridge with no display: the deal, the auction, the play and the
+ * score.
+ *
+ * The game only checks and applies moves. Whoever drives it asks for each
+ * move in turn, either one at a time with {@link #call(Call)} and
+ * {@link #play(Card)} or all at once with {@link #run(Agent[])}.
+ */
+public class Game {
+    public static final int AUCTION = 0;
+    public static final int PLAY    = 1;
+    public static final int OVER    = 2;
+
+    /**
+     * The four seats, indexed by seat.
+     */
+    private final Player[] players;
+
+    /**
+     * The seat that called first.
+     */
+    private final int dealer;
+
+    /**
+     * Which sides are vulnerable (see {@link Duplicate#vulnerability}).
+     */
+    private final int vulnerability;
+
+    /**
+     * The calls made so far, as canonical instances (see {@link Call#of}).
+     */
+    private final List<Call> calls;
+
+    /**
+     * The highest bid so far, or {@code null} if there hasn't been one.
+     */
+    private Bid lastBid;
+
+    /**
+     * The auction as codes, which checks calls and finds the declarer.
+     */
+    private final AuctionState auction;
+
+    /**
+     * The contract, or {@code null} during the auction or if everybody
+     * passed.
+     */
+    private Contract contract;
+
+    private int phase;
+
+    /**
+     * The seat to call or play next.
+     */
+    private int turn;
+
+    /**
+     * The seat that led to the current trick.
+     */
+    private int leader;
+
+    /**
+     * The cards played to the current trick, indexed by seat, with
+     * {@code null} for seats that haven't played.
+     */
+    private final Card[] played;
+
+    /**
+     * The cards of the last complete trick, indexed by seat.
+     */
+    private final Card[] previous;
+
+    /**
+     * The side that won each trick (0 for North/South, 1 for East/West), or
+     * -1 for tricks not played yet.
+     */
+    private final int[] results;
+
+    /**
+     * The number of complete tricks.
+     */
+    private int tricks;
+
+    /**
+     * Create a game with neither side vulnerable. The auction starts at once.
+     *
+     * @param hands the bitboards of the four seats (see {@link Hand}),
+     *              indexed by seat, which must all be the same size
+     * @param dealer the seat to call first
+     */
+    public Game(long[] hands, int dealer) {
+        this(hands, dealer, Duplicate.NONE);
+    }
+
+    /**
+     * Create a game. The auction starts at once.
+     *
+     * @param hands the bitboards of the four seats (see {@link Hand}),
+     *              indexed by seat, which must all be the same size
+     * @param dealer the seat to call first
+     * @param vulnerability {@code Duplicate.NONE},
+     *                      {@code Duplicate.NORTH_SOUTH},
+     *                      {@code Duplicate.EAST_WEST}, or
+     *                      {@code Duplicate.BOTH}
+     */
+    public Game(long[] hands, int dealer, int vulnerability) {
+        this.players = new Player[4];
+        for (int seat = Rules.NORTH; seat <= Rules.WEST; seat++) {
+            if (Hand.size(hands[seat]) != Hand.size(hands[Rules.NORTH])) {
+                throw new IllegalArgumentException("Every hand must have the same number of cards.");
+            }
+            this.players[seat] = new Player(hands[seat]);
+        }
+
+        this.dealer = dealer;
+        this.vulnerability = vulnerability;
+        this.calls = new ArrayList<Call>();
+        this.auction = new AuctionState(dealer);
+        this.phase = Game.AUCTION;
+        this.turn = dealer;
+
+        this.played = new Card[4];
+        this.previous = new Card[4];
+        this.results = new int[Hand.size(hands[Rules.NORTH])];
+        for (int i = 0; i < this.results.length; i++) {
+            this.results[i] = -1;
+        }
+    }
+
+    /**
+     * Deal a game from a shuffled deck.
+     *
+     * @param deck a deck with at least 4 * 13 cards left to deal
+     * @param dealer the seat to call first
+     */
+    public Game(Deck deck, int dealer) {
+        this(new long[] {deck.dealHand(13), deck.dealHand(13), deck.dealHand(13), deck.dealHand(13)}, dealer);
+    }
+
+    /**
+     * Get the part of the game being played.
+     *
+     * @return {@code Game.AUCTION}, {@code Game.PLAY}, or {@code Game.OVER}
+     */
+    public int phase() { return this.phase; }
+
+    /**
+     * Get the seat to call or play next. Dummy's turn is dummy's seat, even
+     * though declarer chooses the card.
+     *
+     * @return {@code Rules.NORTH} to {@code Rules.WEST}
+     */
+    public int turn() { return this.turn; }
+
+    /**
+     * Get the seat that called first.
+     *
+     * @return {@code Rules.NORTH} to {@code Rules.WEST}
+     */
+    public int dealer() { return this.dealer; }
+
+    /**
+     * Get which sides are vulnerable.
+     *
+     * @return {@code Duplicate.NONE} to {@code Duplicate.BOTH}
+     */
+    public int vulnerability() { return this.vulnerability; }
+
+    /**
+     * Get a seat.
+     *
+     * @param seat {@code Rules.NORTH} to {@code Rules.WEST}
+     * @return the player, holding the cards it hasn't played
+     */
+    public Player player(int seat) { return this.players[seat]; }
+
+    /**
+     * Get the calls made so far.
+     *
+     * @return a read-only list of the calls
+     */
+    public List<Call> calls() { return Collections.unmodifiableList(this.calls); }
+
+    /**
+     * Get the contract.
+     *
+     * @return the contract, or {@code null} during the auction or if
+     *         everybody passed
+     */
+    public Contract contract() { return this.contract; }
+
+    /**
+     * Get the highest bid so far.
+     *
+     * @return the bid, or {@code null} if there hasn't been one
+     */
+    public Bid lastBid() { return this.lastBid; }
+
+    /**
+     * Get dummy's seat.
+     *
+     * @return {@code Rules.NORTH} to {@code Rules.WEST}, or -1 if there is no
+     *         contract
+     */
+    public int dummy() { return this.contract != null ? (this.contract.declarer() + 2) % 4 : -1; }
+
+    /**
+     * Get the seat that led to the current trick.
+     *
+     * @return {@code Rules.NORTH} to {@code Rules.WEST}
+     */
+    public int leader() { return this.leader; }
+
+    /**
+     * Get the card a seat played to the current trick.
+     *
+     * @param seat {@code Rules.NORTH} to {@code Rules.WEST}
+     * @return the card, or {@code null} if the seat hasn't played
+     */
+    public Card played(int seat) { return this.played[seat]; }
+
+    /**
+     * Get the card led to the current trick.
+     *
+     * @return the card, or {@code null} if nobody has played
+     */
+    public Card lead() { return this.played[this.leader]; }
+
+    /**
+     * Get the card a seat played to the last complete trick.
+     *
+     * @param seat {@code Rules.NORTH} to {@code Rules.WEST}
+     * @return the card, or {@code null} before the first trick is complete
+     */
+    public Card previous(int seat) { return this.previous[seat]; }
+
+    /**
+     * Get the number of complete tricks.
+     *
+     * @return 0-13, inclusive
+     */
+    public int tricks() { return this.tricks; }
+
+    /**
+     * Get the results of the tricks.
+     *
+     * @return the side that won each trick (0 for North/South, 1 for
+     *         East/West), or -1 for tricks not played yet
+     */
+    public int[] results() { return this.results; }
+
+    /**
+     * Get the calls that are legal now.
+     *
+     * @return a mask with bit {@code code} set for the code (see
+     *         {@link Notation}) of each legal call, or 0 if it isn't the
+     *         auction
+     */
+    public long legalCalls() { return this.phase == Game.AUCTION ? this.auction.legal() : 0; }
+
+    /**
+     * Check if a call is legal now.
+     *
+     * @param c the call
+     * @return {@code true} if it is the auction and the call may be made
+     */
+    public boolean isLegal(Call c) {
+        return this.phase == Game.AUCTION && c != null && this.auction.isLegal(c.code());
+    }
+
+    /**
+     * Make a call for the seat whose turn it is. The play starts when the
+     * auction ends.
+     *
+     * @param c the call
+     * @throws IllegalArgumentException if the call isn't legal
+     */
+    public void call(Call c) {
+        if (!this.isLegal(c)) {
+            throw new IllegalArgumentException("Illegal call: " + c);
+        }
+
+        c = c.canonical();
+        if (c instanceof Bid) { this.lastBid = (Bid) c; }
+        this.auction.call(c.code());
+        this.calls.add(c);
+        this.turn = (this.turn + 1) % 4;
+
+        if (this.auction.isFinished()) {
+            if (this.lastBid != null) {
+                int declarer = this.auction.declarer();
+                boolean vulnerable = Duplicate.isVulnerable(this.vulnerability, declarer);
+                this.contract = new Contract(this.lastBid.rank(), this.lastBid.strain(), this.auction.doubled(),
+                                             declarer, vulnerable);
+                this.phase = Game.PLAY;
+                this.leader = (declarer + 1) % 4;
+                this.turn = this.leader;
+            }
+            else {
+                this.phase = Game.OVER;
+            }
+        }
+    }
+
+    /**
+     * Check if a card is legal now.
+     *
+     * @param c the card
+     * @return {@code true} if it is the play and the seat whose turn it is
+     *         may play the card
+     */
+    public boolean isLegal(Card c) {
+        return this.phase == Game.PLAY && c != null && Rules.playable(c, this.players[this.turn], this.lead());
+    }
+
+    /**
+     * Play a card for the seat whose turn it is. When the trick is complete,
+     * its winner leads to the next one.
+     *
+     * @param c the card
+     * @throws IllegalArgumentException if the card isn't legal
+     */
+    public void play(Card c) {
+        if (!this.isLegal(c)) {
+            throw new IllegalArgumentException("Illegal card: " + c);
+        }
+
+        this.played[this.turn] = this.players[this.turn].playCard(c);
+        this.turn = (this.turn + 1) % 4;
+
+        if (this.turn == this.leader) { // Everybody has played
+            int winner = Game.winner(this.played, this.leader, this.contract.strain());
+            this.results[this.tricks] = winner % 2;
+            this.tricks++;
+
+            System.arraycopy(this.played, 0, this.previous, 0, 4);
+            Arrays.fill(this.played, null);
+            this.leader = winner;
+            this.turn = winner;
+
+            if (this.tricks == this.results.length) { this.phase = Game.OVER; }
+        }
+    }
+
+    /**
+     * Play the rest of the game, asking the agent of each seat for its
+     * moves. Declarer's agent plays dummy's cards.
+     *
+     * @param agents the agents, indexed by seat
+     * @return the score of North/South (see {@link #score()})
+     * @throws IllegalArgumentException if an agent makes an illegal move
+     */
+    public int run(Agent[] agents) {
+        while (this.phase == Game.AUCTION) {
+            this.call(agents[this.turn].call(this, this.turn));
+        }
+        while (this.phase == Game.PLAY) {
+            int agent = this.turn == this.dummy() ? this.contract.declarer() : this.turn;
+            this.play(agents[agent].play(this, this.turn));
+        }
+
+        return this.score();
+    }
+
+    /**
+     * Get the score of the game so far, from North/South's point of view.
+     *
+     * @return North/South's score (East/West's is the negative), which is 0
+     *         if everybody passed
+     */
+    public int score() {
+        int score = 0;
+        if (this.contract != null) {
+            score = this.contract.score(this.results);
+            if (this.contract.declarer() % 2 != 0) { score = -score; }
+        }
+
+        return score;
+    }
+
+    /**
+     * Determine the winner of a trick: the highest trump, or if there are
+     * none, the highest card of the suit led (see {@link Tricks}).
+     *
+     * @param played the four cards played, indexed by seat
+     * @param leader the seat that played the first card of the trick
+     * @param strain the strain of the contract
+     * @return the seat that won
+     */
+    public static int winner(Card[] played, int leader, int strain) {
+        return Tricks.winner(Tricks.pack(played), played[leader].suit(), strain);
+    }
+
+    /**
+     * Determine if the auction is over.
+     * The auction is finished if the last three calls are passes.
+     *
+     * @param calls the history of the auction, at least 4 calls long
+     * @return whether or not the auction is done
+     */
+    public static boolean auctionFinished(List<Call> calls) {
+        return calls.get(calls.size() - 1) == Call.PASS &&
+               calls.get(calls.size() - 2) == Call.PASS &&
+               calls.get(calls.size() - 3) == Call.PASS;
+    }
+}
@@ -0,0 +1,301 @@
+package bridge;
+
+/**
+ * The play of a hand as a position that cards can be played to and taken
+ * back from, for searches and simulations that try millions of lines.
+ *
+ * Everything is kept in primitives (the hands as bitboards, see
+ * {@link Hand}, and cards as indices, see {@link Card#index()}), so
+ * {@link #play(int)} and {@link #undo()} never allocate. The rules are the
+ * same as {@link Rules#playable} and {@link Game#winner}: a seat must follow
+ * suit if it can, and the highest trump, or else the highest card of the
+ * suit led, wins the trick.
+ */
+public class GameState {
+    /**
+     * The cards each seat holds, indexed by seat.
+     */
+    private final long[] hands;
+
+    /**
+     * The trump suit, or {@code Rules.NOTRUMP}.
+     */
+    private final int trump;
+
+    /**
+     * The number of cards in the position before any were played.
+     */
+    private final int size;
+
+    /**
+     * The cards played, in order.
+     */
+    private final byte[] cards;
+
+    /**
+     * The seat that led to each trick, indexed by trick.
+     */
+    private final byte[] leaders;
+
+    /**
+     * The number of cards played.
+     */
+    private int ply;
+
+    private int leader;
+    private int turn;
+
+    /**
+     * The seat winning the current trick so far and the card it played.
+     */
+    private int winner;
+    private int best;
+
+    /**
+     * The tricks won by North/South and by East/West.
+     */
+    private final int[] won;
+
+    /**
+     * The {@link Zobrist#hash} key of the position.
+     */
+    private long key;
+
+    /**
+     * Create a position at the start of a trick.
+     *
+     * @param hands the bitboards of the four seats, indexed by seat, which
+     *              must all be the same size; the array is copied
+     * @param strain the trump suit, or {@code Rules.NOTRUMP}
+     * @param leader the seat on lead
+     */
+    public GameState(long[] hands, int strain, int leader) {
+        this.hands = hands.clone();
+        for (int seat = Rules.NORTH; seat <= Rules.WEST; seat++) {
+            if (Hand.size(hands[seat]) != Hand.size(hands[Rules.NORTH])) {
+                throw new IllegalArgumentException("Every hand must have the same number of cards.");
+            }
+        }
+
+        this.trump = strain;
+        this.size = 4 * Hand.size(hands[Rules.NORTH]);
+        this.cards = new byte[this.size];
+        this.leaders = new byte[this.size / 4 + 1];
+        this.won = new int[2];
+
+        this.leader = leader;
+        this.turn = leader;
+        this.leaders[0] = (byte) leader;
+        this.key = Zobrist.hash(hands, leader, 0);
+    }
+
+    /**
+     * Get the cards a seat holds.
+     *
+     * @param seat {@code Rules.NORTH} to {@code Rules.WEST}
+     * @return the bitboard of the cards
+     */
+    public long hand(int seat) { return this.hands[seat]; }
+
+    /**
+     * Get the trump suit.
+     *
+     * @return {@code Rules.CLUBS} to {@code Rules.NOTRUMP}
+     */
+    public int trump() { return this.trump; }
+
+    /**
+     * Get the seat that led to the current trick.
+     *
+     * @return {@code Rules.NORTH} to {@code Rules.WEST}
+     */
+    public int leader() { return this.leader; }
+
+    /**
+     * Get the seat to play next.
+     *
+     * @return {@code Rules.NORTH} to {@code Rules.WEST}
+     */
+    public int turn() { return this.turn; }
+
+    /**
+     * Get the number of cards played to the current trick.
+     *
+     * @return 0-3, inclusive
+     */
+    public int count() { return this.ply & 3; }
+
+    /**
+     * Get a card of the current trick.
+     *
+     * @param i the position of the card in the trick, where 0 is the lead
+     * @return the index of the card
+     */
+    public int played(int i) { return this.cards[(this.ply & ~3) + i]; }
+
+    /**
+     * Get the seat winning the current trick so far.
+     *
+     * @return {@code Rules.NORTH} to {@code Rules.WEST}, or -1 if nobody has
+     *         played to the trick
+     */
+    public int winning() { return (this.ply & 3) != 0 ? this.winner : -1; }
+
+    /**
+     * Get the number of tricks a side has won.
+     *
+     * @param side 0 for North/South, 1 for East/West
+     * @return the number of tricks
+     */
+    public int tricks(int side) { return this.won[side]; }
+
+    /**
+     * Get the number of cards played.
+     *
+     * @return the number of cards
+     */
+    public int ply() { return this.ply; }
+
+    /**
+     * Check if every card has been played.
+     *
+     * @return {@code true} if the play is over
+     */
+    public boolean isOver() { return this.ply == this.size; }
+
+    /**
+     * Get the {@link Zobrist#hash} key of the position, kept up to date as
+     * cards are played and taken back.
+     *
+     * @return the key
+     */
+    public long key() { return this.key; }
+
+    /**
+     * Get the cards the seat to play may play.
+     *
+     * @return the legal cards as a bitboard, which is empty if the play is
+     *         over
+     */
+    public long legal() {
+        int ledSuit = (this.ply & 3) != 0 ? this.cards[this.ply & ~3] / 13 : Moves.LEAD;
+
+        return Moves.legal(this.hands[this.turn], ledSuit);
+    }
+
+    /**
+     * Get the cards the seat to play may play, keeping only the lowest card
+     * of each sequence of equivalent cards (see {@link Moves#collapse}).
+     *
+     * @return the legal cards as a bitboard
+     */
+    public long moves() {
+        long live = this.hands[0] | this.hands[1] | this.hands[2] | this.hands[3];
+        for (int i = this.ply & ~3; i < this.ply; i++) { live |= 1L << this.cards[i]; }
+
+        return Moves.collapse(this.legal(), this.hands[this.turn], live);
+    }
+
+    /**
+     * Check if the seat to play may play a card.
+     *
+     * @param card the index of the card
+     * @return {@code true} if the card is legal
+     */
+    public boolean isLegal(int card) { return (this.legal() >>> card & 1) != 0; }
+
+    /**
+     * Play a card for the seat whose turn it is. When it completes a trick,
+     * the trick's winner leads next.
+     *
+     * @param card the index of a legal card
+     * @throws IllegalArgumentException if the card isn't legal
+     */
+    public void play(int card) {
+        if (!this.isLegal(card)) {
+            throw new IllegalArgumentException("Illegal card: " + Card.of(card));
+        }
+
+        int seat = this.turn;
+        this.hands[seat] &= ~(1L << card);
+        this.key = Zobrist.play(this.key, card, seat);
+
+        if ((this.ply & 3) == 0 || this.beats(card, this.best)) {
+            this.winner = seat;
+            this.best = card;
+        }
+        this.cards[this.ply++] = (byte) card;
+
+        if ((this.ply & 3) == 0) { // Everybody has played
+            this.won[this.winner & 1]++;
+            this.key = Zobrist.gather(this.key, this.trickBits(this.ply - 4), this.leader, this.winner);
+            this.leader = this.winner;
+            this.turn = this.winner;
+            this.leaders[this.ply >> 2] = (byte) this.winner;
+        }
+        else {
+            this.turn = (seat + 1) & 3;
+        }
+    }
+
+    /**
+     * Play a card for the seat whose turn it is.
+     *
+     * @param c a legal card
+     * @throws IllegalArgumentException if the card isn't legal
+     */
+    public void play(Card c) { this.play(c.index()); }
+
+    /**
+     * Take back the last card played, restoring the position exactly as it
+     * was before.
+     *
+     * @throws IllegalStateException if no cards have been played
+     */
+    public void undo() {
+        if (this.ply == 0) {
+            throw new IllegalStateException("No cards to take back.");
+        }
+
+        if ((this.ply & 3) == 0) { // Put the last trick back on the table
+            int previous = this.leaders[(this.ply >> 2) - 1];
+            this.won[this.leader & 1]--;
+            this.key = Zobrist.gather(this.key, this.trickBits(this.ply - 4), previous, this.leader);
+            this.leader = previous;
+            this.turn = (previous + 3) & 3;
+        }
+        else {
+            this.turn = (this.turn + 3) & 3;
+        }
+
+        int card = this.cards[--this.ply];
+        this.hands[this.turn] |= 1L << card;
+        this.key = Zobrist.unplay(this.key, card, this.turn);
+
+        // Find the winner of the cards still on the table
+        int start = this.ply & ~3;
+        this.winner = this.leader;
+        this.best = this.cards[start];
+        for (int i = 1; i < (this.ply & 3); i++) {
+            if (this.beats(this.cards[start + i], this.best)) {
+                this.winner = (this.leader + i) & 3;
+                this.best = this.cards[start + i];
+            }
+        }
+    }
+
+    /**
+     * Check if a card beats the best card of the trick so far.
+     */
+    private boolean beats(int card, int best) {
+        int suit = card / 13;
+        return suit == best / 13 ? card > best : suit == this.trump;
+    }
+
+    /**
+     * Get the four cards of a trick as a bitboard.
+     */
+    private long trickBits(int start) {
+        return 1L << this.cards[start] | 1L << this.cards[start + 1] | 1L << this.cards[start + 2] | 1L << this.cards[start + 3];
+    }
+}
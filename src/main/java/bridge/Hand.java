@@ -0,0 +1,187 @@
+package bridge;
+
+/**
+ * Operations on hands stored as bitboards.
+ *
+ * A hand is a {@code long} in which bit {@code c.index()} is set if the card
+ * {@code c} is held, so each suit occupies a 13-bit block (clubs in bits
+ * 0-12, diamonds in 13-25, hearts in 26-38, and spades in 39-51) with the two
+ * as the lowest bit of the block. None of the methods allocate, apart from
+ * {@link #toCards(long)}.
+ */
+public final class Hand {
+    /**
+     * The 13 bits of a suit holding.
+     */
+    public static final int HOLDING = 0x1FFF;
+
+    /**
+     * The hand containing all 52 cards.
+     */
+    public static final long DECK = (1L << 52) - 1;
+
+    /**
+     * The cards of each rank from the jack up, in every suit.
+     */
+    private static final long JACKS  = 0x1_0008_0040_0200L;
+    private static final long QUEENS = JACKS << 1;
+    private static final long KINGS  = JACKS << 2;
+    private static final long ACES   = JACKS << 3;
+
+    private Hand() {} // A Hand object should never be instantiated
+
+    /**
+     * Get the bit representing a card.
+     *
+     * @param c the card
+     * @return a hand containing only {@code c}
+     */
+    public static long bit(Card c) { return 1L << c.index(); }
+
+    /**
+     * Convert an array of cards to a hand.
+     *
+     * @param cards the cards in the hand
+     * @return the bitboard of {@code cards}
+     */
+    public static long of(Card[] cards) {
+        long hand = 0;
+        for (Card c : cards) { hand |= Hand.bit(c); }
+
+        return hand;
+    }
+
+    /**
+     * Get the bits of a whole suit.
+     *
+     * @param suit {@code Rules.CLUBS}, {@code Rules.DIAMONDS},
+     *             {@code Rules.HEARTS}, or {@code Rules.SPADES}
+     * @return a hand containing all 13 cards of {@code suit}
+     */
+    public static long suitMask(int suit) { return (long) HOLDING << (13 * suit); }
+
+    /**
+     * Get the holding in a suit, shifted down so that the two is bit 0 and
+     * the ace is bit 12.
+     *
+     * @param hand the hand
+     * @param suit the suit
+     * @return a 13-bit holding
+     */
+    public static int holding(long hand, int suit) { return (int) (hand >>> (13 * suit)) & HOLDING; }
+
+    /**
+     * Check if a hand has a card of the given suit.
+     *
+     * @param hand the hand
+     * @param suit the suit to search for
+     * @return {@code true} if the suit was found, {@code false} otherwise
+     */
+    public static boolean hasSuit(long hand, int suit) { return (hand & Hand.suitMask(suit)) != 0; }
+
+    /**
+     * Count the cards of a suit.
+     *
+     * @param hand the hand
+     * @param suit the suit to count
+     * @return the number of cards of {@code suit} in the hand
+     */
+    public static int length(long hand, int suit) { return Long.bitCount(hand & Hand.suitMask(suit)); }
+
+    /**
+     * Count the cards in a hand.
+     *
+     * @param hand the hand
+     * @return the number of cards
+     */
+    public static int size(long hand) { return Long.bitCount(hand); }
+
+    /**
+     * Count the high-card points of a hand: 4 for each ace, 3 for each king,
+     * 2 for each queen and 1 for each jack.
+     *
+     * @param hand the hand
+     * @return 0-37, inclusive, for a 13-card hand
+     */
+    public static int hcp(long hand) {
+        return 4 * Long.bitCount(hand & ACES) + 3 * Long.bitCount(hand & KINGS) +
+               2 * Long.bitCount(hand & QUEENS) + Long.bitCount(hand & JACKS);
+    }
+
+    /**
+     * Check if a hand is balanced: 4-3-3-3, 4-4-3-2 or 5-3-3-2.
+     *
+     * @param hand the hand, which should have 13 cards
+     * @return {@code true} if every suit has 2-5 cards and at most one has 2
+     */
+    public static boolean isBalanced(long hand) {
+        int doubletons = 0;
+        for (int s = Rules.CLUBS; s <= Rules.SPADES; s++) {
+            int length = Hand.length(hand, s);
+            if (length < 2 || length > 5) { return false; }
+            if (length == 2) { doubletons++; }
+        }
+
+        return doubletons <= 1;
+    }
+
+    /**
+     * Check if a hand holds a card.
+     *
+     * @param hand the hand
+     * @param c the card to look for
+     * @return {@code true} if the card is in the hand
+     */
+    public static boolean contains(long hand, Card c) { return (hand & Hand.bit(c)) != 0; }
+
+    /**
+     * Remove a card from a hand.
+     *
+     * @param hand the hand
+     * @param c the card to remove
+     * @return the hand without {@code c}
+     */
+    public static long remove(long hand, Card c) { return hand & ~Hand.bit(c); }
+
+    /**
+     * Get a card by its position in the sorted hand.
+     *
+     * @param hand the hand
+     * @param pos the position, where 0 is the lowest card
+     * @return the card at {@code pos}
+     */
+    public static Card cardAt(long hand, int pos) {
+        for (int i = 0; i < pos; i++) { hand &= hand - 1; } // Clear the lowest card pos times
+
+        return Card.of(Long.numberOfTrailingZeros(hand));
+    }
+
+    /**
+     * Find the position of a card in the sorted hand.
+     *
+     * @param hand the hand
+     * @param c the card to find
+     * @return the position of the card, or {@literal <} 0 if not found
+     */
+    public static int find(long hand, Card c) {
+        long b = Hand.bit(c);
+        if ((hand & b) == 0) { return -1; }
+
+        return Long.bitCount(hand & (b - 1)); // The number of cards below c
+    }
+
+    /**
+     * Convert a hand to a sorted array of cards.
+     *
+     * @param hand the hand
+     * @return the cards in the hand, in ascending order
+     */
+    public static Card[] toCards(long hand) {
+        Card[] cards = new Card[Long.bitCount(hand)];
+        for (int i = 0; hand != 0; i++, hand &= hand - 1) {
+            cards[i] = Card.of(Long.numberOfTrailingZeros(hand));
+        }
+
+        return cards;
+    }
+}
@@ -0,0 +1,120 @@
+package bridge;
+
+/**
+ * A board and what happened at one table: the deal, the auction, the
+ * contract and the tricks declarer took, as read and written by
+ * {@link PbnReader} and {@link PbnWriter}.
+ */
+public class HandRecord {
+    private final int board;
+    private final int dealer;
+    private final int vulnerability;
+    private final long[] hands;
+    private final byte[] auction;
+    private final Contract contract;
+    private final int result;
+
+    /**
+     * Create a record.
+     *
+     * @param board the board number, or 0 if it isn't known
+     * @param dealer the seat that called first, or -1 if it isn't known
+     * @param vulnerability {@code Duplicate.NONE},
+     *                      {@code Duplicate.NORTH_SOUTH},
+     *                      {@code Duplicate.EAST_WEST}, or
+     *                      {@code Duplicate.BOTH}
+     * @param hands the bitboards of the four seats (see {@link Hand}),
+     *              indexed by seat, with 0 for hands that aren't known; the
+     *              array is copied
+     * @param auction the code of each call (see {@link Auction}), which is
+     *                empty if the auction isn't known
+     * @param contract the contract, or {@code null} if the board was passed
+     *                 out or the contract isn't known
+     * @param result the tricks declarer took, or -1 if they aren't known
+     */
+    public HandRecord(int board, int dealer, int vulnerability, long[] hands, byte[] auction,
+                      Contract contract, int result) {
+        this.board = board;
+        this.dealer = dealer;
+        this.vulnerability = vulnerability;
+        this.hands = hands.clone();
+        this.auction = auction;
+        this.contract = contract;
+        this.result = result;
+    }
+
+    /**
+     * Get the board number.
+     *
+     * @return the number, or 0 if it isn't known
+     */
+    public int board() { return this.board; }
+
+    /**
+     * Get the seat that called first.
+     *
+     * @return {@code Rules.NORTH} to {@code Rules.WEST}, or -1 if it isn't
+     *         known
+     */
+    public int dealer() { return this.dealer; }
+
+    /**
+     * Get which sides were vulnerable.
+     *
+     * @return {@code Duplicate.NONE} to {@code Duplicate.BOTH}
+     */
+    public int vulnerability() { return this.vulnerability; }
+
+    /**
+     * Get the cards dealt to a seat.
+     *
+     * @param seat {@code Rules.NORTH} to {@code Rules.WEST}
+     * @return the bitboard of the hand, or 0 if it isn't known
+     */
+    public long hand(int seat) { return this.hands[seat]; }
+
+    /**
+     * Get the cards dealt to every seat.
+     *
+     * @return a copy of the bitboards, indexed by seat
+     */
+    public long[] hands() { return this.hands.clone(); }
+
+    /**
+     * Get the auction.
+     *
+     * @return the code of each call, which is empty if the auction isn't
+     *         known
+     */
+    public byte[] auction() { return this.auction.clone(); }
+
+    /**
+     * Get the contract.
+     *
+     * @return the contract, or {@code null} if the board was passed out or
+     *         the contract isn't known
+     */
+    public Contract contract() { return this.contract; }
+
+    /**
+     * Get the tricks declarer took.
+     *
+     * @return 0-13, inclusive, or -1 if they aren't known
+     */
+    public int result() { return this.result; }
+
+    /**
+     * Get the score, from North/South's point of view, with the bonuses of
+     * duplicate (see {@link Duplicate#score}).
+     *
+     * @return North/South's score, which is 0 if the board was passed out
+     * @throws IllegalStateException if the contract or result isn't known
+     */
+    public int score() {
+        if (this.contract == null) { return 0; }
+        if (this.result < 0) { throw new IllegalStateException("The result isn't known."); }
+
+        int score = Duplicate.score(this.contract, this.result);
+        return this.contract.declarer() % 2 == 0 ? score : -score;
+    }
+}
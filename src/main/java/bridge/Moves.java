@@ -0,0 +1,71 @@
+package bridge;
+
+/**
+ * Legal-move generation on bitboards (see {@link Hand}).
+ *
+ * The legal cards are found with a couple of masks, whatever the size of the
+ * hand, and can be thinned to one card from each group of equivalent cards
+ * before a search tries them.
+ */
+public final class Moves {
+    /**
+     * The led suit when the card to play is the lead.
+     */
+    public static final int LEAD = -1;
+
+    private Moves() {} // A Moves object should never be instantiated
+
+    /**
+     * Get the cards a hand may play: the cards of the suit led if it has
+     * any, otherwise the whole hand.
+     *
+     * @param hand the cards held
+     * @param ledSuit {@code Rules.CLUBS} to {@code Rules.SPADES}, or
+     *                {@code Moves.LEAD} if the card is the lead
+     * @return the legal cards
+     */
+    public static long legal(long hand, int ledSuit) {
+        long follow = ledSuit == Moves.LEAD ? 0 : hand & Hand.suitMask(ledSuit);
+
+        return follow != 0 ? follow : hand;
+    }
+
+    /**
+     * Get the cards a hand may play.
+     *
+     * @param hand the cards held
+     * @param lead the card led, or {@code null} if the card is the lead
+     * @return the legal cards
+     */
+    public static long legal(long hand, Card lead) {
+        return Moves.legal(hand, lead == null ? Moves.LEAD : lead.suit());
+    }
+
+    /**
+     * Keep only the lowest card of each sequence of equivalent cards. Cards
+     * of a hand are equivalent when every card between them is either in the
+     * same hand or already gone, so it makes no difference which is played.
+     *
+     * @param moves the cards to thin, all held by {@code hand}
+     * @param hand the cards held
+     * @param live every card not yet played, in any hand (including
+     *             {@code hand}) or on the table
+     * @return one card of each sequence in {@code moves}
+     */
+    public static long collapse(long moves, long hand, long live) {
+        long keep = 0;
+
+        for (int s = Rules.CLUBS; s <= Rules.SPADES; s++) {
+            int held = Hand.holding(hand, s);
+            int gone = ~Hand.holding(live, s) & Hand.HOLDING;
+            int runs = held | gone;
+            int starts = runs & ~(runs << 1);
+
+            // Adding the bottom of each run carries through its gone cards to
+            // the lowest card held in it
+            keep |= (long) ((gone + starts) & held) << (13 * s);
+        }
+
+        return keep & moves;
+    }
+}
@@ -0,0 +1,220 @@
+package bridge;
+
+/**
+ * Single-pass parsers for the textual notation of cards and calls.
+ *
+ * Cards are written as described in {@link Card#Card(String)} and calls as
+ * described in {@link Call#isCall(String)}. The parsers look each character
+ * up in a table, never allocate, and report malformed input by returning
+ * {@link #INVALID} instead of throwing, so they can be run over large
+ * imports. Both {@code CharSequence}s and ranges of ASCII bytes are accepted.
+ *
+ * A parsed card is its {@link Card#index()}. A parsed call is a code from 0 to
+ * 37: {@link #PASS}, {@link #DOUBLE}, {@link #REDOUBLE}, and then the 35 bids
+ * in ascending order, so that the code of a bid is
+ * {@code 3 + 5 * (rank - 1) + strain}.
+ */
+public final class Notation {
+    /**
+     * The value returned for input that isn't a card or a call.
+     */
+    public static final int INVALID = -1;
+
+    public static final int PASS      = 0;
+    public static final int DOUBLE    = Rules.DOUBLE;
+    public static final int REDOUBLE  = Rules.REDOUBLE;
+    public static final int FIRST_BID = 3;
+
+    /**
+     * The number of distinct calls.
+     */
+    public static final int CALLS = 38;
+
+    /**
+     * Card ranks by character, or 0 for characters that aren't ranks.
+     */
+    private static final byte[] RANKS = new byte[128];
+
+    /**
+     * Strains by character plus one, or 0 for characters that aren't strains.
+     */
+    private static final byte[] STRAINS = new byte[128];
+
+    static {
+        for (char c = '2'; c <= '9'; c++) { RANKS[c] = (byte) (c - '0'); }
+        Notation.set(RANKS, 't', Rules.TEN);
+        Notation.set(RANKS, 'j', Rules.JACK);
+        Notation.set(RANKS, 'q', Rules.QUEEN);
+        Notation.set(RANKS, 'k', Rules.KING);
+        Notation.set(RANKS, 'a', Rules.ACE);
+
+        Notation.set(STRAINS, 'c', Rules.CLUBS + 1);
+        Notation.set(STRAINS, 'd', Rules.DIAMONDS + 1);
+        Notation.set(STRAINS, 'h', Rules.HEARTS + 1);
+        Notation.set(STRAINS, 's', Rules.SPADES + 1);
+        Notation.set(STRAINS, 'n', Rules.NOTRUMP + 1);
+    }
+
+    private Notation() {} // A Notation object should never be instantiated
+
+    private static void set(byte[] table, char c, int value) {
+        table[c] = (byte) value;
+        table[Character.toUpperCase(c)] = (byte) value;
+    }
+
+    /**
+     * Parse a card.
+     *
+     * @param s the text to parse
+     * @return the index of the card, or {@link #INVALID}
+     */
+    public static int card(CharSequence s) { return Notation.card(s, 0, s.length()); }
+
+    /**
+     * Parse a card from part of a {@code CharSequence}.
+     *
+     * @param s the text to parse
+     * @param start the position of the first character
+     * @param end the position after the last character
+     * @return the index of the card, or {@link #INVALID}
+     */
+    public static int card(CharSequence s, int start, int end) {
+        int len = end - start;
+        if (len < 2 || len > 3) { return INVALID; }
+
+        return Notation.card(len, s.charAt(start), s.charAt(start + 1), s.charAt(end - 1));
+    }
+
+    /**
+     * Parse a card from a range of ASCII bytes.
+     *
+     * @param b the bytes to parse
+     * @param start the position of the first byte
+     * @param end the position after the last byte
+     * @return the index of the card, or {@link #INVALID}
+     */
+    public static int card(byte[] b, int start, int end) {
+        int len = end - start;
+        if (len < 2 || len > 3) { return INVALID; }
+
+        return Notation.card(len, b[start] & 0xFF, b[start + 1] & 0xFF, b[end - 1] & 0xFF);
+    }
+
+    /**
+     * Parse the two or three characters of a card.
+     *
+     * @param len 2 or 3
+     * @param c0 the first character
+     * @param c1 the second character
+     * @param last the last character
+     * @return the index of the card, or {@link #INVALID}
+     */
+    private static int card(int len, int c0, int c1, int last) {
+        if ((c0 | c1 | last) >= 128) { return INVALID; }
+
+        int rank;
+        if (len == 2)                   { rank = RANKS[c0]; }
+        else if (c0 == '1' && c1 == '0') { rank = Rules.TEN; } // "10" is the only three-character form
+        else                            { return INVALID; }
+
+        int suit = STRAINS[last] - 1;
+        if (rank == 0 || suit < Rules.CLUBS || suit > Rules.SPADES) { return INVALID; }
+
+        return suit * 13 + rank - 2;
+    }
+
+    /**
+     * Parse a call.
+     *
+     * @param s the text to parse
+     * @return the code of the call, or {@link #INVALID}
+     */
+    public static int call(CharSequence s) { return Notation.call(s, 0, s.length()); }
+
+    /**
+     * Parse a call from part of a {@code CharSequence}.
+     *
+     * @param s the text to parse
+     * @param start the position of the first character
+     * @param end the position after the last character
+     * @return the code of the call, or {@link #INVALID}
+     */
+    public static int call(CharSequence s, int start, int end) {
+        int len = end - start;
+        if (len < 1 || len > 3) { return INVALID; }
+
+        return Notation.call(len, s.charAt(start), s.charAt(end - 1), len == 3 ? s.charAt(start + 1) : 0);
+    }
+
+    /**
+     * Parse a call from a range of ASCII bytes.
+     *
+     * @param b the bytes to parse
+     * @param start the position of the first byte
+     * @param end the position after the last byte
+     * @return the code of the call, or {@link #INVALID}
+     */
+    public static int call(byte[] b, int start, int end) {
+        int len = end - start;
+        if (len < 1 || len > 3) { return INVALID; }
+
+        return Notation.call(len, b[start] & 0xFF, b[end - 1] & 0xFF, len == 3 ? b[start + 1] & 0xFF : 0);
+    }
+
+    /**
+     * Parse the one to three characters of a call.
+     *
+     * @param len 1-3, inclusive
+     * @param first the first character
+     * @param last the last character
+     * @param mid the middle character if {@code len} is 3
+     * @return the code of the call, or {@link #INVALID}
+     */
+    private static int call(int len, int first, int last, int mid) {
+        if ((first | last | mid) >= 128) { return INVALID; }
+
+        if (len == 1) {
+            if (first == 'p' || first == 'P') { return PASS; }
+            if (first == 'x' || first == 'X') { return DOUBLE; }
+            return INVALID;
+        }
+
+        if ((first == 'x' || first == 'X') && (last == 'x' || last == 'X')) {
+            return len == 2 ? REDOUBLE : INVALID;
+        }
+
+        // A bid: a rank from 1 to 7, then C, D, H, S, N, or NT
+        int rank = first - '0';
+        int strain = len == 2 ? STRAINS[last] - 1 : (last == 't' || last == 'T') ? STRAINS[mid] - 1 : -1;
+        if (rank < 1 || rank > 7 || strain < Rules.CLUBS || (len == 3 && strain != Rules.NOTRUMP)) {
+            return INVALID;
+        }
+
+        return Notation.bid(rank, strain);
+    }
+
+    /**
+     * Get the code of a bid.
+     *
+     * @param rank 1-7 inclusive
+     * @param strain {@code Rules.CLUBS} to {@code Rules.NOTRUMP}
+     * @return 3-37, inclusive
+     */
+    public static int bid(int rank, int strain) { return FIRST_BID + 5 * (rank - 1) + strain; }
+
+    /**
+     * Get the rank of a bid from its code.
+     *
+     * @param code the code of a bid
+     * @return 1-7 inclusive
+     */
+    public static int rank(int code) { return (code - FIRST_BID) / 5 + 1; }
+
+    /**
+     * Get the strain of a bid from its code.
+     *
+     * @param code the code of a bid
+     * @return {@code Rules.CLUBS} to {@code Rules.NOTRUMP}
+     */
+    public static int strain(int code) { return (code - FIRST_BID) % 5; }
+}
@@ -0,0 +1,12 @@
+package bridge;
+
+/**
+ * A pass. There is only one, {@link Call#PASS}.
+ */
+public final class Pass extends Call {
+    Pass() {}
+
+    public int code() { return Notation.PASS; }
+
+    public String toString() { return "P"; }
+}
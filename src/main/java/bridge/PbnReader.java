@@ -0,0 +1,584 @@
+package bridge;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Reads hand records from a file in Portable Bridge Notation (PBN), one at a
+ * time, however large the file.
+ *
+ * The file is mapped into memory a window at a time and copied a buffer at
+ * a time into a byte array, in which each game (the lines up to the next
+ * blank line) is parsed where it lies. Tag names are compared byte by byte
+ * and values are parsed straight from the bytes, so no {@code String} is
+ * made for a tag and only the record itself is allocated.
+ *
+ * The tags read are Board, Dealer, Vulnerable, Deal, Declarer, Contract,
+ * Result and Auction, with the calls of the auction section; other tags,
+ * other sections, comments and annotations such as notes and NAGs are
+ * skipped. If there is an auction but no Contract tag, the contract is
+ * found from the auction. Inheritance of values with {@code "#"} isn't
+ * supported.
+ */
+public class PbnReader implements Iterator<HandRecord>, Closeable {
+    /**
+     * The size of the memory-mapped windows of the file.
+     */
+    private static final long WINDOW = 1L << 28;
+
+    /**
+     * The initial size of the buffer. It grows to hold a game that doesn't
+     * fit.
+     */
+    private static final int BUFFER = 1 << 20;
+
+    /**
+     * The most bytes a game can take, so that a file with no blank lines
+     * can't make the buffer grow without end.
+     */
+    private static final int MAX_GAME = 1 << 26;
+
+    private static final byte[] BOARD = PbnReader.ascii("Board");
+    private static final byte[] DEALER = PbnReader.ascii("Dealer");
+    private static final byte[] VULNERABLE = PbnReader.ascii("Vulnerable");
+    private static final byte[] DEAL = PbnReader.ascii("Deal");
+    private static final byte[] DECLARER = PbnReader.ascii("Declarer");
+    private static final byte[] CONTRACT = PbnReader.ascii("Contract");
+    private static final byte[] RESULT = PbnReader.ascii("Result");
+    private static final byte[] AUCTION = PbnReader.ascii("Auction");
+    private static final byte[] PASS = PbnReader.ascii("Pass");
+
+    /**
+     * Card ranks by character, or 0 for characters that aren't ranks.
+     */
+    private static final byte[] RANKS = new byte[128];
+
+    static {
+        for (char c = '2'; c <= '9'; c++) { RANKS[c] = (byte) (c - '0'); }
+        for (char c : new char[] {'T', 't'}) { RANKS[c] = Rules.TEN; }
+        for (char c : new char[] {'J', 'j'}) { RANKS[c] = Rules.JACK; }
+        for (char c : new char[] {'Q', 'q'}) { RANKS[c] = Rules.QUEEN; }
+        for (char c : new char[] {'K', 'k'}) { RANKS[c] = Rules.KING; }
+        for (char c : new char[] {'A', 'a'}) { RANKS[c] = Rules.ACE; }
+    }
+
+    private final FileChannel channel;
+    private final long size;
+
+    /**
+     * The window mapped now and the position in the file of its first byte.
+     */
+    private MappedByteBuffer window;
+    private long windowStart;
+
+    /**
+     * The position in the file of the next byte to copy into the buffer.
+     */
+    private long filePosition;
+
+    /**
+     * The bytes copied from the file; those from {@code pos} to
+     * {@code limit} haven't been parsed yet.
+     */
+    private byte[] buffer;
+    private int pos;
+    private int limit;
+
+    /**
+     * The auction of the game being parsed.
+     */
+    private final AuctionState auction;
+    private final byte[] calls;
+
+    /**
+     * The next record, or {@code null} if it hasn't been read.
+     */
+    private HandRecord next;
+
+    /**
+     * The fields of the game being parsed, or -1 if their tags haven't been
+     * read.
+     */
+    private int board;
+    private int dealer;
+    private int vulnerability;
+    private final long[] hands;
+    private int declarer;
+    private int contract; // The code of the bid, or Notation.PASS if passed out
+    private int doubled;
+    private int result;
+    private int callCount;
+
+    /**
+     * Open a file.
+     *
+     * @param file the PBN file
+     * @throws IOException if the file can't be opened
+     */
+    public PbnReader(Path file) throws IOException {
+        this.channel = FileChannel.open(file, StandardOpenOption.READ);
+        this.size = this.channel.size();
+        this.buffer = new byte[BUFFER];
+        this.auction = new AuctionState(Rules.NORTH);
+        this.calls = new byte[AuctionState.MAX_CALLS];
+        this.hands = new long[4];
+    }
+
+    /**
+     * Get the records of a file as a stream, which closes the file when it
+     * is closed.
+     *
+     * @param file the PBN file
+     * @return the records, in order
+     * @throws IOException if the file can't be opened
+     */
+    public static Stream<HandRecord> stream(Path file) throws IOException {
+        PbnReader reader = new PbnReader(file);
+        Spliterator<HandRecord> split = Spliterators.spliteratorUnknownSize(reader, Spliterator.ORDERED |
+                                                                                    Spliterator.NONNULL);
+        return StreamSupport.stream(split, false).onClose(() -> {
+            try {
+                reader.close();
+            }
+            catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+
+    /**
+     * Get the number of bytes of the file parsed so far.
+     *
+     * @return the number of bytes
+     */
+    public long position() { return this.filePosition - (this.limit - this.pos); }
+
+    /**
+     * Check if there is another record.
+     *
+     * @return {@code true} if there is
+     * @throws UncheckedIOException if the file can't be read
+     * @throws IllegalArgumentException if a game can't be parsed
+     */
+    public boolean hasNext() {
+        if (this.next == null) {
+            try {
+                this.next = this.read();
+            }
+            catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        return this.next != null;
+    }
+
+    /**
+     * Get the next record.
+     *
+     * @return the record
+     * @throws NoSuchElementException if there are no more records
+     * @throws UncheckedIOException if the file can't be read
+     * @throws IllegalArgumentException if a game can't be parsed
+     */
+    public HandRecord next() {
+        if (!this.hasNext()) { throw new NoSuchElementException(); }
+
+        HandRecord record = this.next;
+        this.next = null;
+        return record;
+    }
+
+    public void close() throws IOException {
+        this.window = null;
+        this.channel.close();
+    }
+
+    /**
+     * Read the next game.
+     *
+     * @return the record, or {@code null} at the end of the file
+     */
+    private HandRecord read() throws IOException {
+        while (true) {
+            // Find the end of the game, reading more of the file if needed
+            int end = this.gameEnd();
+            while (end < 0) {
+                if (!this.fill()) {
+                    end = this.limit;
+                    break;
+                }
+                end = this.gameEnd();
+            }
+
+            int start = this.pos;
+            this.pos = Math.min(end + 1, this.limit);
+            if (this.parse(start, end)) { return this.record(); }
+            if (this.pos >= this.limit && !this.fill()) { return null; }
+        }
+    }
+
+    /**
+     * Find the blank line that ends the game that starts at {@code pos}.
+     * Blank lines in comments in braces don't count, and neither do braces
+     * in quoted values or in the rest of a line after ';' or '%'.
+     *
+     * @return the position of the blank line's newline, or -1 if it isn't
+     *         in the buffer
+     */
+    private int gameEnd() {
+        byte[] b = this.buffer;
+        boolean blank = true, comment = false, quoted = false, restOfLine = false;
+        for (int i = this.pos; i < this.limit; i++) {
+            byte c = b[i];
+            if (c == '\n') {
+                if (blank && !comment && i > this.pos) { return i; }
+                blank = true;
+                quoted = restOfLine = false;
+            }
+            else if (c != ' ' && c != '\t' && c != '\r') {
+                if (blank && c == '%' && !comment) { restOfLine = true; } // An escape line
+                blank = false;
+                if (restOfLine) { continue; }
+
+                if (comment) { comment = c != '}'; }
+                else if (quoted) {
+                    if (c == '\\' && i + 1 < this.limit && b[i + 1] != '\n') { i++; } // An escaped character
+                    else { quoted = c != '"'; }
+                }
+                else if (c == '{') { comment = true; }
+                else if (c == '"') { quoted = true; }
+                else if (c == ';') { restOfLine = true; }
+            }
+        }
+
+        return -1;
+    }
+
+    /**
+     * Move the unparsed bytes to the front of the buffer and copy more of
+     * the file after them.
+     *
+     * @return {@code false} if the whole file has been copied
+     */
+    private boolean fill() throws IOException {
+        if (this.filePosition >= this.size) { return false; }
+
+        int left = this.limit - this.pos;
+        if (this.pos == 0 && left == this.buffer.length) { // A long game
+            if (this.buffer.length >= MAX_GAME) { throw this.error(0, "Game longer than " + MAX_GAME + " bytes"); }
+            this.buffer = java.util.Arrays.copyOf(this.buffer, 2 * this.buffer.length);
+        }
+        System.arraycopy(this.buffer, this.pos, this.buffer, 0, left);
+        this.pos = 0;
+        this.limit = left;
+
+        while (this.limit < this.buffer.length && this.filePosition < this.size) {
+            if (this.window == null || this.filePosition >= this.windowStart + this.window.capacity()) {
+                this.windowStart = this.filePosition;
+                this.window = this.channel.map(FileChannel.MapMode.READ_ONLY, this.windowStart,
+                                               Math.min(WINDOW, this.size - this.windowStart));
+            }
+
+            int offset = (int) (this.filePosition - this.windowStart);
+            int n = Math.min(this.buffer.length - this.limit, this.window.capacity() - offset);
+            this.window.get(offset, this.buffer, this.limit, n);
+            this.limit += n;
+            this.filePosition += n;
+        }
+
+        return true;
+    }
+
+    /**
+     * Parse the lines of a game.
+     *
+     * @return {@code true} if there was at least one tag
+     */
+    private boolean parse(int start, int end) {
+        this.board = 0;
+        this.dealer = -1;
+        this.vulnerability = Duplicate.NONE;
+        this.hands[0] = this.hands[1] = this.hands[2] = this.hands[3] = 0;
+        this.declarer = -1;
+        this.contract = -1;
+        this.doubled = Rules.UNDOUBLED;
+        this.result = -1;
+        this.callCount = -1;
+
+        byte[] b = this.buffer;
+        boolean tags = false, inAuction = false;
+        int i = start;
+        while (i < end) {
+            while (i < end && PbnReader.isSpace(b[i])) { i++; }
+            if (i == end) { break; }
+
+            int lineEnd = i;
+            while (lineEnd < end && b[lineEnd] != '\n') { lineEnd++; }
+
+            if (b[i] == '[') {
+                inAuction = this.tag(i + 1, lineEnd);
+                tags = true;
+                i = lineEnd;
+            }
+            else if (b[i] == '{') {
+                i = PbnReader.closeBrace(b, i, end);
+            }
+            else if (b[i] == ';' || b[i] == '%' || !inAuction) {
+                i = lineEnd;
+            }
+            else {
+                i = this.calls(i, lineEnd, end);
+            }
+        }
+
+        return tags;
+    }
+
+    /**
+     * Parse a tag, after its '['.
+     *
+     * @return {@code true} if it starts the auction section
+     */
+    private boolean tag(int start, int lineEnd) {
+        byte[] b = this.buffer;
+        int nameEnd = start;
+        while (nameEnd < lineEnd && !PbnReader.isSpace(b[nameEnd]) && b[nameEnd] != '"') { nameEnd++; }
+
+        int from = nameEnd;
+        while (from < lineEnd && b[from] != '"') { from++; }
+        int to = from + 1;
+        while (to < lineEnd && b[to] != '"') { to += b[to] == '\\' ? 2 : 1; }
+        if (to >= lineEnd) { throw this.error(start, "Tag without a quoted value"); }
+        from++;
+
+        if (PbnReader.matches(b, start, nameEnd, DEAL))            { this.deal(from, to); }
+        else if (PbnReader.matches(b, start, nameEnd, BOARD))      { this.board = this.number(from, to); }
+        else if (PbnReader.matches(b, start, nameEnd, DEALER))     { this.dealer = this.seat(from, to); }
+        else if (PbnReader.matches(b, start, nameEnd, VULNERABLE)) { this.vulnerability(from, to); }
+        else if (PbnReader.matches(b, start, nameEnd, DECLARER))   { this.declarer = this.seat(from, to); }
+        else if (PbnReader.matches(b, start, nameEnd, CONTRACT))   { this.contract(from, to); }
+        else if (PbnReader.matches(b, start, nameEnd, RESULT))     { this.result = this.number(from, to); }
+        else if (PbnReader.matches(b, start, nameEnd, AUCTION)) {
+            this.callCount = 0;
+            this.auction.reset(Math.max(this.seat(from, to), Rules.NORTH));
+            return true;
+        }
+
+        return false;
+    }
+
+    /**
+     * Parse a Deal value, like {@code "N:AK.QJ2.T98.7654 ... ... ..."}.
+     */
+    private void deal(int from, int to) {
+        byte[] b = this.buffer;
+        if (to - from < 2 || b[from + 1] != ':') { throw this.error(from, "Invalid deal"); }
+
+        int seat = this.seat(from, from + 1);
+        if (seat < 0) { throw this.error(from, "Invalid deal"); }
+        long dealt = 0;
+        int i = from + 2;
+        for (int h = 0; h < 4; h++, seat = (seat + 1) % 4) {
+            while (i < to && b[i] == ' ') { i++; }
+            if (i < to && b[i] == '-') { // An unknown hand
+                i++;
+                continue;
+            }
+
+            int start = i;
+            long hand = 0;
+            int suit = Rules.SPADES;
+            while (i < to && b[i] != ' ') {
+                if (b[i] == '.') {
+                    if (--suit < Rules.CLUBS) { throw this.error(i, "Too many suits"); }
+                }
+                else {
+                    int rank = (b[i] & 0x80) == 0 ? RANKS[b[i]] : 0;
+                    if (rank == 0) { throw this.error(i, "Invalid rank"); }
+                    hand |= 1L << (suit * 13 + rank - 2);
+                }
+                i++;
+            }
+            if (Long.bitCount(hand) != 13) { throw this.error(start, "Hand without 13 cards"); }
+            if ((hand & dealt) != 0)       { throw this.error(start, "Card in more than one hand"); }
+            dealt |= hand;
+            this.hands[seat] = hand;
+        }
+    }
+
+    /**
+     * Parse a Vulnerable value: None, Love, -, NS, EW, All or Both.
+     */
+    private void vulnerability(int from, int to) {
+        byte[] b = this.buffer;
+        int first = to > from ? b[from] | 0x20 : 0; // Lower case
+        if (first == 'n' && to - from == 2 && (b[from + 1] | 0x20) == 's') { this.vulnerability = Duplicate.NORTH_SOUTH; }
+        else if (first == 'e')                                           { this.vulnerability = Duplicate.EAST_WEST; }
+        else if (first == 'a' || first == 'b')                           { this.vulnerability = Duplicate.BOTH; }
+        else                                                             { this.vulnerability = Duplicate.NONE; }
+    }
+
+    /**
+     * Parse a Contract value, like {@code "4HX"} or {@code "Pass"}.
+     */
+    private void contract(int from, int to) {
+        byte[] b = this.buffer;
+        if (to == from || b[from] == '?') { return; }
+        if (PbnReader.matchesIgnoreCase(b, from, to, PASS)) {
+            this.contract = Notation.PASS;
+            return;
+        }
+
+        int end = to;
+        while (end > from && (b[end - 1] | 0x20) == 'x') { end--; }
+        int code = Notation.call(b, from, end);
+        if (!Call.isBid(code) || to - end > 2) { throw this.error(from, "Invalid contract"); }
+
+        this.contract = code;
+        this.doubled = to - end;
+    }
+
+    /**
+     * Parse the calls of a line of the auction section, or until the end of
+     * a comment that starts on it.
+     *
+     * @return the position after the last byte parsed
+     */
+    private int calls(int i, int lineEnd, int end) {
+        byte[] b = this.buffer;
+        while (i < lineEnd) {
+            while (i < lineEnd && PbnReader.isSpace(b[i])) { i++; }
+            if (i == lineEnd) { break; }
+            if (b[i] == '{') { return PbnReader.closeBrace(b, i, end); }
+            if (b[i] == ';') { return lineEnd; }
+
+            int tokenEnd = i;
+            while (tokenEnd < lineEnd && !PbnReader.isSpace(b[tokenEnd])) { tokenEnd++; }
+
+            if (b[i] != '=' && b[i] != '$' && b[i] != '*' && b[i] != '+') { // Skip notes, NAGs and ends
+                int callEnd = tokenEnd;
+                while (callEnd > i && (b[callEnd - 1] == '!' || b[callEnd - 1] == '?')) { callEnd--; }
+
+                if (callEnd - i == 2 && (b[i] | 0x20) == 'a' && (b[i + 1] | 0x20) == 'p') { // All pass
+                    while (!this.auction.isFinished()) { this.call(Notation.PASS, i); }
+                }
+                else if (callEnd > i && b[i] != '-') {
+                    int code = PbnReader.matchesIgnoreCase(b, i, callEnd, PASS) ? Notation.PASS
+                                                                                : Notation.call(b, i, callEnd);
+                    if (code == Notation.INVALID) { throw this.error(i, "Invalid call"); }
+                    this.call(code, i);
+                }
+            }
+            i = tokenEnd;
+        }
+
+        return lineEnd;
+    }
+
+    private void call(int code, int at) {
+        if (!this.auction.isLegal(code)) { throw this.error(at, "Illegal call"); }
+
+        this.auction.call(code);
+        this.calls[this.callCount++] = (byte) code;
+    }
+
+    /**
+     * Make the record of the game just parsed.
+     */
+    private HandRecord record() {
+        byte[] auction = this.callCount > 0 ? java.util.Arrays.copyOf(this.calls, this.callCount) : new byte[0];
+
+        // Without a Contract tag, find the contract from a finished auction
+        if (this.contract < 0 && this.callCount > 0 && this.auction.isFinished()) {
+            int bid = this.auction.lastBid();
+            this.contract = bid == Notation.INVALID ? Notation.PASS : bid;
+            this.doubled = this.auction.doubled();
+            this.declarer = this.auction.declarer();
+        }
+
+        Contract c = null;
+        if (this.contract >= Notation.FIRST_BID && this.declarer >= 0) {
+            c = new Contract(Notation.rank(this.contract), Notation.strain(this.contract), this.doubled,
+                             this.declarer, Duplicate.isVulnerable(this.vulnerability, this.declarer));
+        }
+
+        return new HandRecord(this.board, this.dealer, this.vulnerability, this.hands, auction, c,
+                              c != null ? this.result : -1);
+    }
+
+    /**
+     * Parse a seat: N, E, S or W.
+     */
+    private int seat(int from, int to) {
+        int c = to > from ? this.buffer[from] | 0x20 : 0;
+        if (c == 'n') { return Rules.NORTH; }
+        if (c == 'e') { return Rules.EAST; }
+        if (c == 's') { return Rules.SOUTH; }
+        if (c == 'w') { return Rules.WEST; }
+        if (c == '?' || c == 0) { return -1; }
+
+        throw this.error(from, "Invalid seat");
+    }
+
+    /**
+     * Parse a whole number, or -1 if the value is empty or unknown.
+     */
+    private int number(int from, int to) {
+        if (to == from || this.buffer[from] == '?') { return -1; }
+
+        int n = 0;
+        for (int i = from; i < to; i++) {
+            int d = this.buffer[i] - '0';
+            if (d < 0 || d > 9 || n > 100_000_000) { throw this.error(i, "Invalid number"); }
+            n = 10 * n + d;
+        }
+
+        return n;
+    }
+
+    private IllegalArgumentException error(int at, String message) {
+        long offset = this.filePosition - (this.limit - at);
+        return new IllegalArgumentException(message + " at byte " + offset);
+    }
+
+    private static boolean matches(byte[] b, int from, int to, byte[] name) {
+        return to - from == name.length && java.util.Arrays.equals(b, from, to, name, 0, name.length);
+    }
+
+    private static boolean matchesIgnoreCase(byte[] b, int from, int to, byte[] word) {
+        if (to - from != word.length) { return false; }
+        for (int i = 0; i < word.length; i++) {
+            if ((b[from + i] | 0x20) != (word[i] | 0x20)) { return false; }
+        }
+
+        return true;
+    }
+
+    /**
+     * Find the end of a comment in braces.
+     *
+     * @return the position after the '}', or {@code end} if there is none
+     */
+    private static int closeBrace(byte[] b, int i, int end) {
+        while (i < end && b[i] != '}') { i++; }
+
+        return Math.min(i + 1, end);
+    }
+
+    private static boolean isSpace(byte c) { return c == ' ' || c == '\t' || c == '\r' || c == '\n'; }
+
+    private static byte[] ascii(String s) { return s.getBytes(StandardCharsets.US_ASCII); }
+}
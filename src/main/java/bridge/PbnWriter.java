@@ -0,0 +1,188 @@
+package bridge;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Writes hand records in Portable Bridge Notation (PBN), so that
+ * {@link PbnReader} and other programs can read them.
+ *
+ * Each record is written as a game with the tags of the mandatory tag set,
+ * with {@code "?"} for those a record doesn't know, and then its auction
+ * section, if it has an auction. The text is built in a byte array and
+ * written in large blocks, so writing makes no {@code String}s.
+ */
+public class PbnWriter implements Closeable {
+    /**
+     * The size at which the buffer is written out.
+     */
+    private static final int FLUSH = 1 << 16;
+
+    private static final byte[] SEATS = {'N', 'E', 'S', 'W'};
+    private static final byte[] STRAINS = {'C', 'D', 'H', 'S'};
+    private static final byte[] RANKS = {'2', '3', '4', '5', '6', '7', '8', '9', 'T', 'J', 'Q', 'K', 'A'};
+    private static final String[] VULNERABILITY = {"None", "NS", "EW", "All"};
+
+    private final OutputStream out;
+    private byte[] buffer;
+    private int size;
+
+    /**
+     * Create a writer.
+     *
+     * @param out the stream to write to, which is closed with the writer
+     */
+    public PbnWriter(OutputStream out) {
+        this.out = out;
+        this.buffer = new byte[2 * FLUSH];
+    }
+
+    /**
+     * Write a record.
+     *
+     * @param record the record
+     * @throws IOException if the stream can't be written to
+     */
+    public void write(HandRecord record) throws IOException {
+        Contract contract = record.contract();
+        byte[] auction = record.auction();
+
+        this.tag("Event", "?");
+        this.tag("Site", "?");
+        this.tag("Date", "?");
+        this.start("Board");
+        if (record.board() > 0) { this.number(record.board()); }
+        else                    { this.put('?'); }
+        this.end();
+        this.tag("West", "?");
+        this.tag("North", "?");
+        this.tag("East", "?");
+        this.tag("South", "?");
+        this.seatTag("Dealer", record.dealer());
+        this.tag("Vulnerable", VULNERABILITY[record.vulnerability()]);
+        this.deal(record);
+        this.tag("Scoring", "?");
+
+        boolean passedOut = contract == null && auction.length > 0;
+        this.seatTag("Declarer", contract != null ? contract.declarer() : -1);
+        this.start("Contract");
+        if (contract != null) {
+            this.number(contract.rank());
+            this.strain(contract.strain());
+            for (int i = 0; i < contract.doubled(); i++) { this.put('X'); }
+        }
+        else {
+            this.put(passedOut ? "Pass" : "?");
+        }
+        this.end();
+        this.start("Result");
+        if (record.result() >= 0) { this.number(record.result()); }
+        else                      { this.put('?'); }
+        this.end();
+
+        if (auction.length > 0) {
+            this.seatTag("Auction", record.dealer());
+            for (int i = 0; i < auction.length; i++) {
+                this.call(auction[i]);
+                this.put(i % 4 == 3 || i == auction.length - 1 ? '\n' : ' ');
+            }
+        }
+        this.put('\n');
+
+        if (this.size >= FLUSH) { this.flush(); }
+    }
+
+    /**
+     * Write out everything buffered.
+     *
+     * @throws IOException if the stream can't be written to
+     */
+    public void flush() throws IOException {
+        this.out.write(this.buffer, 0, this.size);
+        this.size = 0;
+        this.out.flush();
+    }
+
+    public void close() throws IOException {
+        this.flush();
+        this.out.close();
+    }
+
+    /**
+     * Write a Deal tag, starting from North.
+     */
+    private void deal(HandRecord record) {
+        this.start("Deal");
+        this.put("N:");
+        for (int seat = Rules.NORTH; seat <= Rules.WEST; seat++) {
+            if (seat > Rules.NORTH) { this.put(' '); }
+
+            long hand = record.hand(seat);
+            if (hand == 0) {
+                this.put('-');
+                continue;
+            }
+            for (int suit = Rules.SPADES; suit >= Rules.CLUBS; suit--) {
+                if (suit < Rules.SPADES) { this.put('.'); }
+                int holding = Hand.holding(hand, suit);
+                for (int rank = 12; rank >= 0; rank--) {
+                    if ((holding >>> rank & 1) != 0) { this.put(RANKS[rank]); }
+                }
+            }
+        }
+        this.end();
+    }
+
+    private void call(int code) {
+        if (code == Notation.PASS) {
+            this.put("Pass");
+        }
+        else if (Call.isDouble(code)) {
+            this.put(code == Notation.DOUBLE ? "X" : "XX");
+        }
+        else {
+            this.number(Notation.rank(code));
+            this.strain(Notation.strain(code));
+        }
+    }
+
+    private void strain(int strain) {
+        if (strain == Rules.NOTRUMP) { this.put("NT"); }
+        else                         { this.put(STRAINS[strain]); }
+    }
+
+    private void seatTag(String name, int seat) {
+        this.start(name);
+        this.put(seat >= 0 ? SEATS[seat] : (byte) '?');
+        this.end();
+    }
+
+    private void tag(String name, String value) {
+        this.start(name);
+        this.put(value);
+        this.end();
+    }
+
+    private void start(String name) {
+        this.put('[');
+        this.put(name);
+        this.put(" \"");
+    }
+
+    private void end() { this.put("\"]\n"); }
+
+    private void number(int n) {
+        if (n >= 10) { this.number(n / 10); }
+        this.put('0' + n % 10);
+    }
+
+    private void put(String s) {
+        for (int i = 0; i < s.length(); i++) { this.put(s.charAt(i)); }
+    }
+
+    private void put(int b) {
+        if (this.size == this.buffer.length) { this.buffer = java.util.Arrays.copyOf(this.buffer, 2 * this.size); }
+        this.buffer[this.size++] = (byte) b;
+    }
+}
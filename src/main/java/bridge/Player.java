@@ -1,16 +1,27 @@
 package bridge;
 
 public class Player {
-    private Card[] hand;
+    /**
+     * The cards held, as a bitboard (see {@link Hand}).
+     */
+    private long hand;
 
     /**
-     * Create a player and sort their hand.
+     * Create a player from an array of cards.
      *
      * @param hand an array of {@code Card}s of length 13
      */
     public Player(Card[] hand) {
+        this(Hand.of(hand));
+    }
+
+    /**
+     * Create a player from a bitboard.
+     *
+     * @param hand the cards held, as described in {@link Hand}
+     */
+    public Player(long hand) {
         this.hand = hand;
-        java.util.Arrays.sort(hand);
     }
 
     /**
@@ -19,14 +30,21 @@ public class Player {
      * @param pos the position to retrieve
      * @return the card at {@code pos}
      */
-    public Card cardAt(int pos) { return this.hand[pos]; }
+    public Card cardAt(int pos) { return Hand.cardAt(this.hand, pos); }
 
     /**
-     * Get the hand.
+     * Get the hand, sorted in ascending order.
      *
      * @return the player's hand
      */
-    public Card[] hand() { return this.hand; }
+    public Card[] hand() { return Hand.toCards(this.hand); }
+
+    /**
+     * Get the hand as a bitboard.
+     *
+     * @return the player's hand, as described in {@link Hand}
+     */
+    public long bits() { return this.hand; }
 
     /**
      * Find a {@code Card} in the hand.
@@ -34,13 +52,15 @@ public class Player {
      * @param c the card to find
      * @return the position of the card, or {@literal <} 0 if not found
      */
-    public int find(Card c) {
-        for (int i = 0; i < this.hand.length; i++) {
-            if (this.hand[i].equals(c)) { return i; }
-        }
+    public int find(Card c) { return Hand.find(this.hand, c); }
 
-        return -1;
-    }
+    /**
+     * Check if the player holds a card.
+     *
+     * @param c the card to look for
+     * @return {@code true} if the card is in the hand
+     */
+    public boolean has(Card c) { return Hand.contains(this.hand, c); }
 
     /**
      * Play a card, removing it from the hand.
@@ -50,48 +70,44 @@ public class Player {
      */
     public Card playCard(int pos) {
         Card played = this.cardAt(pos); // Save the card played to be returned later
-
-        // Remove the card
-        Card[] newHand = new Card[this.hand.length - 1];
-        for (int i = 0; i < pos; i++) { newHand[i] = this.hand[i]; } // Copy everything up to pos
-        for (int i = pos; i < newHand.length; i++) { newHand[i] = this.hand[i+1]; } // Skip the card at pos
-        this.hand = newHand;
+        this.hand = Hand.remove(this.hand, played);
 
         return played;
     }
 
     /**
-     * Check if the player has a card of the given suit.
+     * Play a card, removing it from the hand.
      *
-     * @param suit the suit to search for
-     * @return {@code true} if the suit was found, {@code false} otherwise
+     * @param c the card to play, which must be in the hand
+     * @return {@code c}
      */
-    public boolean hasSuit(int suit) {
-        boolean out = false;
+    public Card playCard(Card c) {
+        this.hand = Hand.remove(this.hand, c);
 
-        for (Card c : this.hand) {
-            out = out || c.suit() == suit;
-        }
-
-        return out;
+        return c;
     }
 
-    public Card[] suit(int s) {
-        // Count the suit
-        int numSuit = 0;
-        for (int i = 0; i < this.hand.length; i++) {
-            if (this.hand[i].suit() == s) { numSuit++; }
-        }
+    /**
+     * Check if the player has a card of the given suit.
+     *
+     * @param suit the suit to search for
+     * @return {@code true} if the suit was found, {@code false} otherwise
+     */
+    public boolean hasSuit(int suit) { return Hand.hasSuit(this.hand, suit); }
 
-        int pos = 0;
-        Card[] suit = new Card[numSuit];
-        for (Card c : this.hand) {
-            if (c.suit() == s) {
-                suit[pos] = c;
-                pos++;
-            }
-        }
+    /**
+     * Count the cards of a suit.
+     *
+     * @param suit the suit to count
+     * @return the number of cards of {@code suit} held
+     */
+    public int length(int suit) { return Hand.length(this.hand, suit); }
 
-        return suit;
-    }
+    /**
+     * Get the cards of a suit, in ascending order.
+     *
+     * @param s the suit
+     * @return the cards of {@code s} held
+     */
+    public Card[] suit(int s) { return Hand.toCards(this.hand & Hand.suitMask(s)); }
 }
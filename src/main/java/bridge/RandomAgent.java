@@ -0,0 +1,53 @@
+package bridge;
+
+import java.util.SplittableRandom;
+import java.util.random.RandomGenerator;
+
+/**
+ * An agent that makes random legal moves, for running games without a
+ * person at the table.
+ *
+ * It passes three times in four; otherwise it bids the cheapest legal bid in
+ * a random strain. In the play, every legal card is equally likely.
+ */
+public class RandomAgent implements Agent {
+    private final RandomGenerator random;
+
+    /**
+     * Create an agent with its own random number generator.
+     */
+    public RandomAgent() {
+        this(new SplittableRandom());
+    }
+
+    /**
+     * Create an agent that chooses with the given generator. Seeding the
+     * generator makes its moves reproducible.
+     *
+     * @param random the source of randomness
+     */
+    public RandomAgent(RandomGenerator random) {
+        this.random = random;
+    }
+
+    public Call call(Game game, int seat) {
+        Call out = Call.PASS;
+
+        if (this.random.nextInt(4) == 0) {
+            int strain = this.random.nextInt(5);
+            Bid last = game.lastBid();
+            int rank = last == null || strain > last.strain() ? 1 : 2;
+            if (last != null) { rank += last.rank() - 1; }
+
+            if (rank <= 7) { out = Call.of(Notation.bid(rank, strain)); }
+        }
+
+        return out;
+    }
+
+    public Card play(Game game, int seat) {
+        long hand = Moves.legal(game.player(seat).bits(), game.lead());
+
+        return Hand.cardAt(hand, this.random.nextInt(Hand.size(hand)));
+    }
+}
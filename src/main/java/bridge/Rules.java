@@ -56,12 +56,7 @@ public final class Rules {
      * @return {@code true} if this is a legal play, {@code false} otherwise
      */
     public static boolean playable(Card check, Player p, Card lead) {
-        int leadSuit = lead == null ? check.suit() : lead.suit(); // Any suit can be played if this is the card lead
-
-        boolean legalSuit = Rules.followsSuit(check, lead) || !p.hasSuit(leadSuit);
-        boolean legalCard = p.find(check) >= 0;
-
-        return legalSuit && legalCard;
+        return (Moves.legal(p.bits(), lead) & Hand.bit(check)) != 0;
     }
 
     /**
@@ -80,6 +75,23 @@ public final class Rules {
         return name;
     }
 
+    /**
+     * Get the name of a strain from its number.
+     *
+     * @param strain {@code Rules.CLUBS} to {@code Rules.NOTRUMP}
+     * @return the name of the strain as a String
+     */
+    public static String strainName(int strain) {
+        String name = "";
+        if (strain == Rules.CLUBS)         { name = "Clubs"; }
+        else if (strain == Rules.DIAMONDS) { name = "Diamonds"; }
+        else if (strain == Rules.HEARTS)   { name = "Hearts"; }
+        else if (strain == Rules.SPADES)   { name = "Spades"; }
+        else if (strain == Rules.NOTRUMP)  { name = "Notrump"; }
+
+        return name;
+    }
+
     /**
      * Find the declarer of an auction.
      *
@@ -0,0 +1,291 @@
+package bridge;
+
+import java.util.SplittableRandom;
+import java.util.stream.IntStream;
+
+/**
+ * Estimates what declarer can expect from what declarer can see: their own
+ * hand and dummy's.
+ *
+ * The 26 hidden cards are dealt at random between the defenders many times,
+ * and each layout is solved double-dummy (see {@link DoubleDummy}). The
+ * layouts are solved in batches on all cores, all storing positions in one
+ * {@link TranspositionTable}, and the analysis stops as soon as the estimate
+ * of the mean is tight enough, the time runs out, or the most layouts
+ * allowed have been solved.
+ *
+ * Layout {@code i} depends only on the seed and {@code i}, so an analysis
+ * is reproducible however many cores share the work.
+ */
+public class SingleDummy {
+    /**
+     * The fewest layouts solved before the analysis may stop early.
+     */
+    public static final int MIN_SAMPLES = 32;
+
+    /**
+     * The number of standard deviations in a 95% confidence interval.
+     */
+    private static final double Z = 1.96;
+
+    private final long declarerHand;
+    private final long dummyHand;
+    private final int declarer;
+
+    /**
+     * The cards neither declarer nor dummy holds, as card indices.
+     */
+    private final byte[] hidden;
+
+    private final long seed;
+    private final TranspositionTable table;
+
+    /**
+     * The outcome of an analysis in one strain.
+     */
+    public static class Result {
+        private final int strain;
+        private final int[] counts;
+        private final int samples;
+        private final long nanos;
+
+        Result(int strain, int[] counts, int samples, long nanos) {
+            this.strain = strain;
+            this.counts = counts;
+            this.samples = samples;
+            this.nanos = nanos;
+        }
+
+        /**
+         * Get the strain analysed.
+         *
+         * @return {@code Rules.CLUBS} to {@code Rules.NOTRUMP}
+         */
+        public int strain() { return this.strain; }
+
+        /**
+         * Get the number of layouts solved.
+         *
+         * @return the number of layouts
+         */
+        public int samples() { return this.samples; }
+
+        /**
+         * Get the number of layouts in which declarer took a number of
+         * tricks.
+         *
+         * @param tricks 0-13, inclusive
+         * @return the number of layouts
+         */
+        public int count(int tricks) { return this.counts[tricks]; }
+
+        /**
+         * Get the mean number of tricks declarer took.
+         *
+         * @return the mean
+         */
+        public double mean() {
+            long total = 0;
+            for (int t = 0; t < this.counts.length; t++) { total += (long) t * this.counts[t]; }
+
+            return (double) total / this.samples;
+        }
+
+        /**
+         * Get the half-width of the 95% confidence interval of the mean.
+         *
+         * @return the half-width, in tricks
+         */
+        public double halfWidth() { return SingleDummy.halfWidth(this.counts, this.samples); }
+
+        /**
+         * Get the fraction of layouts in which declarer took at least a
+         * number of tricks.
+         *
+         * @param tricks 0-13, inclusive
+         * @return 0-1, inclusive
+         */
+        public double probability(int tricks) {
+            int n = 0;
+            for (int t = tricks; t < this.counts.length; t++) { n += this.counts[t]; }
+
+            return (double) n / this.samples;
+        }
+
+        /**
+         * Get the fraction of layouts in which a contract makes.
+         *
+         * @param rank 1-7, inclusive
+         * @return 0-1, inclusive
+         */
+        public double makeProbability(int rank) { return this.probability(6 + rank); }
+
+        /**
+         * Get the time the analysis took.
+         *
+         * @return the time in seconds
+         */
+        public double seconds() { return this.nanos / 1e9; }
+
+        /**
+         * Get the throughput of the analysis.
+         *
+         * @return layouts solved per second
+         */
+        public double samplesPerSecond() { return this.samples / this.seconds(); }
+
+        public String toString() {
+            return String.format("%s: %.2f +/- %.2f tricks from %d layouts (%.2f/s)",
+                                 Rules.strainName(this.strain), this.mean(), this.halfWidth(),
+                                 this.samples, this.samplesPerSecond());
+        }
+    }
+
+    /**
+     * Create an analysis with a new 32 MB table and a random seed.
+     *
+     * @param declarerHand declarer's 13 cards, as a bitboard (see {@link Hand})
+     * @param dummyHand dummy's 13 cards
+     * @param declarer declarer's seat
+     * @throws IllegalArgumentException if the hands share a card or either
+     *                                  hasn't 13 cards
+     */
+    public SingleDummy(long declarerHand, long dummyHand, int declarer) {
+        this(declarerHand, dummyHand, declarer, new SplittableRandom().nextLong(), new TranspositionTable(32));
+    }
+
+    /**
+     * Create an analysis.
+     *
+     * @param declarerHand declarer's 13 cards, as a bitboard (see {@link Hand})
+     * @param dummyHand dummy's 13 cards
+     * @param declarer declarer's seat
+     * @param seed the seed the layouts are dealt from
+     * @param table the table to store positions in, which may be shared
+     * @throws IllegalArgumentException if the hands share a card or either
+     *                                  hasn't 13 cards
+     */
+    public SingleDummy(long declarerHand, long dummyHand, int declarer, long seed, TranspositionTable table) {
+        if ((declarerHand & dummyHand) != 0) {
+            throw new IllegalArgumentException("A card is in both declarer's and dummy's hands.");
+        }
+        if (Hand.size(declarerHand) != 13 || Hand.size(dummyHand) != 13) {
+            // With fewer cards, the unseen cards would include those already played
+            throw new IllegalArgumentException("Declarer and dummy must have 13 cards each.");
+        }
+
+        this.declarerHand = declarerHand;
+        this.dummyHand = dummyHand;
+        this.declarer = declarer;
+        this.seed = seed;
+        this.table = table;
+
+        long unseen = Hand.DECK & ~declarerHand & ~dummyHand;
+        this.hidden = new byte[26];
+        for (int i = 0; i < this.hidden.length; i++, unseen &= unseen - 1) {
+            this.hidden[i] = (byte) Long.numberOfTrailingZeros(unseen);
+        }
+    }
+
+    /**
+     * Analyse one strain.
+     *
+     * @param strain {@code Rules.CLUBS} to {@code Rules.NOTRUMP}
+     * @param maxSamples the most layouts to solve
+     * @param tolerance stop once the 95% confidence interval of the mean is
+     *                  at most this many tricks either side
+     * @param millis stop after the first batch that ends past this many
+     *               milliseconds
+     * @return the result
+     */
+    public Result analyze(int strain, int maxSamples, double tolerance, long millis) {
+        return this.analyze(new int[] {strain}, maxSamples, tolerance, millis)[0];
+    }
+
+    /**
+     * Analyse several strains on the same layouts. The analysis stops early
+     * only when every strain's estimate is tight enough.
+     *
+     * @param strains the strains, {@code Rules.CLUBS} to
+     *                {@code Rules.NOTRUMP}
+     * @param maxSamples the most layouts to solve
+     * @param tolerance stop once the 95% confidence interval of each mean is
+     *                  at most this many tricks either side
+     * @param millis stop after the first batch that ends past this many
+     *               milliseconds
+     * @return the result of each strain, in the same order
+     */
+    public Result[] analyze(int[] strains, int maxSamples, double tolerance, long millis) {
+        long start = System.nanoTime();
+        long budget = millis < Long.MAX_VALUE / 1_000_000 ? millis * 1_000_000 : Long.MAX_VALUE;
+        int[][] counts = new int[strains.length][14];
+        int batch = 4 * Runtime.getRuntime().availableProcessors();
+
+        int n = 0;
+        while (n < maxSamples) {
+            int first = n, size = Math.min(batch, maxSamples - n);
+
+            // The tricks of each strain, 4 bits each
+            long[] tricks = IntStream.range(first, first + size).parallel()
+                                     .mapToLong(i -> this.sample(i, strains)).toArray();
+            for (long t : tricks) {
+                for (int s = 0; s < strains.length; s++) { counts[s][(int) (t >>> (4 * s)) & 0xF]++; }
+            }
+            n += size;
+
+            boolean tight = n >= MIN_SAMPLES;
+            for (int s = 0; s < strains.length && tight; s++) {
+                tight = SingleDummy.halfWidth(counts[s], n) <= tolerance;
+            }
+            if (tight || System.nanoTime() - start >= budget) { break; }
+        }
+
+        long nanos = System.nanoTime() - start;
+        Result[] results = new Result[strains.length];
+        for (int s = 0; s < strains.length; s++) { results[s] = new Result(strains[s], counts[s], n, nanos); }
+
+        return results;
+    }
+
+    /**
+     * Deal and solve one layout.
+     *
+     * @return declarer's tricks in each strain, 4 bits each
+     */
+    private long sample(int i, int[] strains) {
+        SplittableRandom random = new SplittableRandom(this.seed + i * 0x9E3779B97F4A7C15L);
+        byte[] cards = this.hidden.clone();
+        Deck.shuffle(cards, random);
+
+        long[] hands = new long[4];
+        int lho = (this.declarer + 1) % 4;
+        hands[this.declarer] = this.declarerHand;
+        hands[(this.declarer + 2) % 4] = this.dummyHand;
+        for (int c = 0; c < cards.length; c++) {
+            hands[c < cards.length / 2 ? lho : (lho + 2) % 4] |= 1L << cards[c];
+        }
+
+        DoubleDummy solver = new DoubleDummy(this.table);
+        long tricks = 0;
+        for (int s = 0; s < strains.length; s++) {
+            tricks |= (long) solver.solve(hands, strains[s], lho) << (4 * s);
+        }
+
+        return tricks;
+    }
+
+    /**
+     * Get the half-width of the 95% confidence interval of a mean.
+     */
+    private static double halfWidth(int[] counts, int samples) {
+        double sum = 0, squares = 0;
+        for (int t = 0; t < counts.length; t++) {
+            sum += (double) t * counts[t];
+            squares += (double) t * t * counts[t];
+        }
+        double mean = sum / samples;
+        double variance = Math.max(0, squares / samples - mean * mean);
+
+        return Z * Math.sqrt(variance / samples);
+    }
+}
@@ -0,0 +1,37 @@
+package bridge;
+
+/**
+ * Calls by a {@link BiddingSystem} and leaves the play to another agent.
+ *
+ * An agent keeps a little scratch space, so it shouldn't be used by several
+ * threads at once.
+ */
+public class SystemAgent implements Agent {
+    private final BiddingSystem system;
+    private final Agent player;
+
+    /**
+     * The hand given to the system's conditions.
+     */
+    private final long[] scratch;
+
+    /**
+     * Create an agent.
+     *
+     * @param system the system to call by
+     * @param player the agent to choose the cards to play
+     */
+    public SystemAgent(BiddingSystem system, Agent player) {
+        this.system = system;
+        this.player = player;
+        this.scratch = new long[1];
+    }
+
+    public Call call(Game game, int seat) {
+        int code = this.system.choose(game.calls(), game.player(seat).bits(), game.legalCalls(), this.scratch);
+
+        return Call.of(code);
+    }
+
+    public Card play(Game game, int seat) { return this.player.play(game, seat); }
+}
@@ -0,0 +1,394 @@
+package bridge;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A fixed-size table of bounds on the number of tricks North/South can take
+ * from positions at the start of a trick, shared by any number of threads.
+ *
+ * An entry doesn't describe a single position. It stores how many cards of
+ * each suit every seat holds, the strain, who is on lead, and who holds only
+ * the top few cards of each suit (the ones that decided tricks in the search
+ * that produced it); the rest of each suit are small cards whose ranks don't
+ * matter. An entry therefore matches every position that agrees with it on
+ * those cards, in any deal.
+ *
+ * The table lives outside the heap, in direct buffers of up to 1 GB each, so
+ * tens of millions of entries cost no garbage collection work. Each entry
+ * takes {@link #ENTRY_BYTES} bytes. The key is the {@code long} of suit
+ * lengths and the owners of the top card of each suit, so that positions
+ * differing in those cards, which seldom share a bound, don't crowd into one
+ * bucket. Entries with the same key, strain, and leader share a bucket of
+ * {@link #WAYS} slots, filled in order. When a bucket is full, the slot
+ * reused is one from an older generation (see {@link #nextGeneration()})
+ * with the fewest cards left if there is one, and otherwise the bucket's
+ * slots are reused in turn.
+ *
+ * No locks are taken. Each entry carries a checksum of its contents, so an
+ * entry torn by two threads writing the same slot at once is seen as empty
+ * rather than giving a wrong bound. The turn of each bucket is updated
+ * without synchronization too, since a lost update only changes which slot
+ * is reused.
+ */
+public class TranspositionTable {
+    /**
+     * The number of slots in a bucket.
+     */
+    public static final int WAYS = 64;
+
+    /**
+     * The number of bytes in an entry.
+     */
+    public static final int ENTRY_BYTES = 32;
+
+    /**
+     * The result of a probe that found no usable bound.
+     */
+    public static final int UNKNOWN = 0;
+    public static final int AT_LEAST = 1;
+    public static final int LESS = 2;
+
+    /**
+     * The flag set in a probe's result when it passed over entries with the
+     * same key for other positions.
+     */
+    public static final int COLLISION = 1 << 24;
+
+    /**
+     * The base 2 logarithm of the largest buffer size.
+     */
+    private static final int SEGMENT_BITS = 30;
+
+    private static final VarHandle LONGS = MethodHandles.byteBufferViewVarHandle(long[].class,
+                                                                                  ByteOrder.nativeOrder());
+
+    /**
+     * The bits of the owners of the top cards of two suits, by the number
+     * of cards of each (4 bits each, lower suit first).
+     */
+    private static final long[] MASKS = new long[256];
+
+    /**
+     * The bits of the owners of the top card of each suit, in the layout of
+     * the owners, which go into the bucket along with the suit lengths.
+     */
+    private static final long TOP = 1L << 12 | 1L << 25 | 1L << 38 | 1L << 51;
+
+    static {
+        for (int tops = 0; tops < 256; tops++) {
+            long low = 0x1FFF & -(1 << (13 - (tops & 0xF)));
+            long high = 0x1FFF & -(1 << (13 - (tops >>> 4)));
+            MASKS[tops] = low | low << 13 | (high | high << 13) << 26;
+        }
+    }
+
+    /**
+     * The entries. A bucket is {@code WAYS * ENTRY_BYTES} bytes holding four
+     * columns of {@code WAYS} longs each:
+     *
+     * 1. the suit lengths of the seats, 4 bits each, in bits
+     *    {@code 4 * (4 * seat + suit)};
+     * 2. the owners of the top cards of hearts and spades, and
+     * 3. of clubs and diamonds: each suit takes 26 bits, the lower suit
+     *    first, with bit 0 of the owners' seats in the first 13 and bit 1 in
+     *    the next 13, and the highest card as the top bit of each 13; only
+     *    the bits of the top cards the entry depends on are kept;
+     * 4. the rest: bit 0 marks a used slot, bits 1-2 are the leader, bits
+     *    3-5 the strain, bits 6-21 the number of top cards stored for each
+     *    suit, bits 22-25 the lower bound, bits 26-29 the upper bound, bits
+     *    30-35 the best lead plus one, bits 36-39 the generation, and bits
+     *    40-63 a checksum of the rest of the entry.
+     */
+    private final ByteBuffer[] segments;
+
+    /**
+     * The slot of each bucket to reuse next, one byte per bucket.
+     */
+    private final ByteBuffer turns;
+
+    private final int bucketMask;
+
+    /**
+     * The base 2 logarithm of the number of buckets in a segment.
+     */
+    private final int segmentBuckets;
+
+    private final AtomicInteger generation = new AtomicInteger();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder collisions = new LongAdder();
+    private final LongAdder overwrites = new LongAdder();
+
+    /**
+     * Create an empty table.
+     *
+     * @param megabytes the most memory to use, of which the largest power of
+     *                  2 is taken; at least 1
+     */
+    public TranspositionTable(int megabytes) {
+        if (megabytes < 1) {
+            throw new IllegalArgumentException("Table size must be at least 1 MB.");
+        }
+
+        int bits = 63 - Long.numberOfLeadingZeros((long) megabytes << 20);
+        int bucketBits = Integer.numberOfTrailingZeros(WAYS * ENTRY_BYTES);
+        int segmentBits = Math.min(bits, SEGMENT_BITS);
+
+        this.segments = new ByteBuffer[1 << (bits - segmentBits)];
+        for (int i = 0; i < this.segments.length; i++) {
+            this.segments[i] = ByteBuffer.allocateDirect(1 << segmentBits).order(ByteOrder.nativeOrder());
+        }
+        this.bucketMask = (1 << (bits - bucketBits)) - 1;
+        this.turns = ByteBuffer.allocateDirect(this.bucketMask + 1);
+        this.segmentBuckets = segmentBits - bucketBits;
+    }
+
+    /**
+     * Get the number of entries the table holds.
+     *
+     * @return the number of slots
+     */
+    public long capacity() { return (long) (this.bucketMask + 1) * WAYS; }
+
+    /**
+     * Remove every entry. This must not run at the same time as a search.
+     */
+    public void clear() {
+        for (ByteBuffer segment : this.segments) {
+            for (int i = 0; i < segment.capacity(); i += 8) { LONGS.set(segment, i, 0L); }
+        }
+        for (int i = 0; i < this.turns.capacity(); i++) { this.turns.put(i, (byte) 0); }
+    }
+
+    /**
+     * Start a new generation. Entries stored in earlier generations stay
+     * valid, but are replaced first when their bucket is full.
+     */
+    public void nextGeneration() { this.generation.incrementAndGet(); }
+
+    /**
+     * Get the number of probes that found a bound. Solvers add their
+     * probes at the end of each solve.
+     *
+     * @return the number of hits
+     */
+    public long hits() { return this.hits.sum(); }
+
+    /**
+     * Get the number of probes that didn't find a bound.
+     *
+     * @return the number of misses
+     */
+    public long misses() { return this.misses.sum(); }
+
+    /**
+     * Get the number of misses that passed over entries for other positions
+     * with the same key, or entries torn by concurrent writes.
+     *
+     * @return the number of collisions
+     */
+    public long collisions() { return this.collisions.sum(); }
+
+    /**
+     * Get the number of stores that replaced an entry for another position.
+     *
+     * @return the number of overwrites
+     */
+    public long overwrites() { return this.overwrites.sum(); }
+
+    /**
+     * Look for an entry that decides whether North/South can take a number
+     * of tricks.
+     *
+     * @param lengths the suit lengths of the seats, as in {@link #segments}
+     * @param strain {@code Rules.CLUBS} to {@code Rules.NOTRUMP}
+     * @param leader the seat on lead
+     * @param hi the owners of the hearts and spades, as in {@link #segments}
+     * @param lo the owners of the clubs and diamonds
+     * @param target the number of tricks North/South need
+     * @return {@link #UNKNOWN}, {@link #AT_LEAST}, or {@link #LESS} in bits
+     *         0-1; the number of top cards of each suit that the matching
+     *         entry depends on in bits 2-17; the best lead plus one (or 0)
+     *         in bits 18-23, from a matching entry if any has one, and
+     *         otherwise from an entry for another position with the same
+     *         key, as a guess; and {@link #COLLISION}
+     */
+    public int probe(long lengths, int strain, int leader, long hi, long lo, int target) {
+        int bucket = this.bucket(lengths ^ (hi & TOP) * 31 ^ (lo & TOP) * 17, strain, leader);
+        ByteBuffer segment = this.segments[bucket >>> this.segmentBuckets];
+        int base = (bucket & (1 << this.segmentBuckets) - 1) * WAYS * ENTRY_BYTES;
+        int best = 0, other = 0;
+        boolean collision = false;
+
+        for (int way = 0; way < WAYS; way++) {
+            long entryLengths = (long) LONGS.get(segment, base + 8 * way);
+            if (entryLengths != lengths) {
+                if (entryLengths == 0) { break; } // Slots are filled in order, so the rest are empty
+                continue;
+            }
+
+            long entryHi = (long) LONGS.get(segment, base + 8 * (WAYS + way));
+            long entryLo = (long) LONGS.get(segment, base + 8 * (2 * WAYS + way));
+            long m = (long) LONGS.get(segment, base + 8 * (3 * WAYS + way));
+            if ((m & 1) == 0 || (m >>> 1 & 0x1F) != (leader | strain << 2)) { continue; }
+
+            int tops = (int) (m >>> 6) & 0xFFFF;
+            if (((hi ^ entryHi) & MASKS[tops >>> 8]) != 0 || ((lo ^ entryLo) & MASKS[tops & 0xFF]) != 0 ||
+                m >>> 40 != TranspositionTable.checksum(lengths, entryHi, entryLo, m)) {
+                collision = true;
+                if (other == 0) { other = (int) (m >>> 30 & 0x3F); }
+                continue;
+            }
+
+            if ((m >>> 30 & 0x3F) != 0) { best = (int) (m >>> 30 & 0x3F); }
+            if ((m >>> 22 & 0xF) >= target) {
+                return AT_LEAST | tops << 2 | best << 18;
+            }
+            if ((m >>> 26 & 0xF) < target) {
+                return LESS | tops << 2 | best << 18;
+            }
+        }
+
+        return UNKNOWN | (best != 0 ? best : other) << 18 | (collision ? COLLISION : 0);
+    }
+
+    /**
+     * Store a bound. If an entry depends on exactly the same cards, its
+     * bounds are narrowed; otherwise a new entry is made.
+     *
+     * @param lengths the suit lengths of the seats, as in {@link #segments}
+     * @param strain {@code Rules.CLUBS} to {@code Rules.NOTRUMP}
+     * @param leader the seat on lead
+     * @param hi the owners of the hearts and spades, as in {@link #segments}
+     * @param lo the owners of the clubs and diamonds
+     * @param tops the number of top cards of each suit the bound depends on,
+     *             4 bits per suit starting with clubs
+     * @param lower the fewest tricks North/South can take
+     * @param upper the most tricks North/South can take
+     * @param best the index of the best card to lead, or -1 if unknown
+     * @return {@code true} if the entry replaced one for another position
+     */
+    public boolean store(long lengths, int strain, int leader, long hi, long lo, int tops,
+                      int lower, int upper, int best) {
+        int bucket = this.bucket(lengths ^ (hi & TOP) * 31 ^ (lo & TOP) * 17, strain, leader);
+        ByteBuffer segment = this.segments[bucket >>> this.segmentBuckets];
+        int base = (bucket & (1 << this.segmentBuckets) - 1) * WAYS * ENTRY_BYTES;
+        hi &= MASKS[tops >>> 8];
+        lo &= MASKS[tops & 0xFF];
+        int generation = this.generation.get() & 0xF;
+
+        // Look for the same entry, and otherwise the first empty slot
+        int slot = -1;
+        boolean overwrite = false;
+        for (int way = 0; way < WAYS; way++) {
+            long entryLengths = (long) LONGS.get(segment, base + 8 * way);
+            if (entryLengths == 0) { // Slots are filled in order, so the rest are empty
+                slot = way;
+                break;
+            }
+            if (entryLengths != lengths) { continue; }
+
+            long m = (long) LONGS.get(segment, base + 8 * (3 * WAYS + way));
+            if ((m >>> 1 & 0x1F) != (leader | strain << 2) || (m >>> 6 & 0xFFFF) != tops) { continue; }
+            long entryHi = (long) LONGS.get(segment, base + 8 * (WAYS + way));
+            long entryLo = (long) LONGS.get(segment, base + 8 * (2 * WAYS + way));
+            if (entryHi == hi && entryLo == lo && (m & 1) != 0 &&
+                m >>> 40 == TranspositionTable.checksum(entryLengths, entryHi, entryLo, m)) {
+                lower = Math.max(lower, (int) (m >>> 22 & 0xF));
+                upper = Math.min(upper, (int) (m >>> 26 & 0xF));
+                if (best < 0) { best = (int) (m >>> 30 & 0x3F) - 1; }
+                slot = way;
+                break;
+            }
+        }
+
+        if (slot < 0) {
+            // The bucket is full: reuse a torn slot, or the one with the
+            // fewest cards from an older generation
+            int victimScore = Integer.MAX_VALUE;
+            for (int way = 0; way < WAYS && victimScore >= 0; way++) {
+                long entryLengths = (long) LONGS.get(segment, base + 8 * way);
+                long m = (long) LONGS.get(segment, base + 8 * (3 * WAYS + way));
+                int score;
+                if ((m & 1) == 0 || m >>> 40 != TranspositionTable.checksum(entryLengths,
+                        (long) LONGS.get(segment, base + 8 * (WAYS + way)),
+                        (long) LONGS.get(segment, base + 8 * (2 * WAYS + way)), m)) { score = -1; }
+                else if ((m >>> 36 & 0xF) != generation) { score = TranspositionTable.cards(entryLengths); }
+                else { continue; }
+                if (score < victimScore) {
+                    slot = way;
+                    victimScore = score;
+                }
+            }
+            overwrite = victimScore >= 0;
+        }
+        if (slot < 0) { // Every slot is in use by this generation, so take the bucket's turn
+            int turn = this.turns.get(bucket);
+            this.turns.put(bucket, (byte) (turn + 1));
+            slot = turn & (WAYS - 1);
+            overwrite = true;
+        }
+
+        long m = 1 | (long) (leader | strain << 2) << 1 | (long) tops << 6 | (long) lower << 22 |
+                 (long) upper << 26 | (long) (best + 1) << 30 | (long) generation << 36;
+        m |= TranspositionTable.checksum(lengths, hi, lo, m) << 40;
+        LONGS.set(segment, base + 8 * slot, lengths);
+        LONGS.set(segment, base + 8 * (WAYS + slot), hi);
+        LONGS.set(segment, base + 8 * (2 * WAYS + slot), lo);
+        LONGS.set(segment, base + 8 * (3 * WAYS + slot), m);
+
+        return overwrite;
+    }
+
+    /**
+     * Add to the statistics of the table.
+     *
+     * @param hits the number of probes that found a bound
+     * @param misses the number of probes that didn't
+     * @param collisions the number of misses that passed over other entries
+     * @param overwrites the number of stores that replaced other entries
+     */
+    void record(long hits, long misses, long collisions, long overwrites) {
+        this.hits.add(hits);
+        this.misses.add(misses);
+        this.collisions.add(collisions);
+        this.overwrites.add(overwrites);
+    }
+
+    /**
+     * Get the bucket for a key, a strain, and a leader.
+     */
+    private int bucket(long lengths, int strain, int leader) {
+        long h = (lengths + (leader | strain << 2)) * 0x9E3779B97F4A7C15L;
+        h ^= h >>> 31;
+
+        return (int) (h >>> 32) & this.bucketMask;
+    }
+
+    /**
+     * Compute the 24-bit checksum of an entry from everything but the
+     * checksum itself.
+     */
+    private static long checksum(long lengths, long hi, long lo, long meta) {
+        long h = lengths * 0x9E3779B97F4A7C15L ^ hi;
+        h = h * 0xBF58476D1CE4E5B9L ^ lo;
+        h = h * 0x94D049BB133111EBL ^ (meta & 0xFFFFFFFFFFL);
+        h *= 0x9E3779B97F4A7C15L;
+
+        return h >>> 40;
+    }
+
+    /**
+     * Count the cards left in a position from its suit lengths.
+     */
+    private static int cards(long lengths) {
+        long bytes = (lengths & 0x0F0F0F0F0F0F0F0FL) + (lengths >>> 4 & 0x0F0F0F0F0F0F0F0FL);
+        return (int) (bytes * 0x0101010101010101L >>> 56);
+    }
+}
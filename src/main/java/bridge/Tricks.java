@@ -0,0 +1,150 @@
+package bridge;
+
+/**
+ * Finds the winners of tricks with a lookup table instead of comparing
+ * cards suit by suit.
+ *
+ * Every card has a strength for each trump strain and suit led: 0 if it
+ * neither follows suit nor trumps, its rank if it follows suit, and more
+ * than any card of the suit led if it is a trump. The winner of a trick is
+ * the seat with the strongest card, found with three {@code Math.max}es.
+ *
+ * A trick is packed into an {@code int} with a byte for each seat's card
+ * index (see {@link Card#index()}), North in the low byte.
+ */
+public final class Tricks {
+    /**
+     * The strength of each card, indexed by
+     * {@code 256 * trump + 64 * ledSuit + card}.
+     */
+    private static final byte[] STRENGTH = new byte[5 * 256];
+
+    static {
+        for (int trump = Rules.CLUBS; trump <= Rules.NOTRUMP; trump++) {
+            for (int led = Rules.CLUBS; led <= Rules.SPADES; led++) {
+                for (int card = 0; card < 52; card++) {
+                    int suit = card / 13, rank = card % 13 + 1;
+                    int strength = suit == trump ? 13 + rank : suit == led ? rank : 0;
+                    STRENGTH[256 * trump + 64 * led + card] = (byte) strength;
+                }
+            }
+        }
+    }
+
+    private Tricks() {} // A Tricks object should never be instantiated
+
+    /**
+     * Pack the four cards of a trick.
+     *
+     * @param north the index of North's card
+     * @param east the index of East's card
+     * @param south the index of South's card
+     * @param west the index of West's card
+     * @return the packed trick
+     */
+    public static int pack(int north, int east, int south, int west) {
+        return north | east << 8 | south << 16 | west << 24;
+    }
+
+    /**
+     * Pack the four cards of a trick.
+     *
+     * @param played the four cards, indexed by seat
+     * @return the packed trick
+     */
+    public static int pack(Card[] played) {
+        return Tricks.pack(played[Rules.NORTH].index(), played[Rules.EAST].index(),
+                           played[Rules.SOUTH].index(), played[Rules.WEST].index());
+    }
+
+    /**
+     * Get the card a seat played to a packed trick.
+     *
+     * @param trick the packed trick
+     * @param seat {@code Rules.NORTH} to {@code Rules.WEST}
+     * @return the index of the card
+     */
+    public static int card(int trick, int seat) { return trick >>> (8 * seat) & 0xFF; }
+
+    /**
+     * Get the strength of a card in a trick. A card beats another if it is
+     * stronger.
+     *
+     * @param card the index of the card
+     * @param ledSuit {@code Rules.CLUBS} to {@code Rules.SPADES}
+     * @param trump {@code Rules.CLUBS} to {@code Rules.NOTRUMP}
+     * @return 0 if the card can't win the trick, higher for stronger cards
+     */
+    public static int strength(int card, int ledSuit, int trump) {
+        return STRENGTH[256 * trump + 64 * ledSuit + card];
+    }
+
+    /**
+     * Find the winner of a trick.
+     *
+     * @param trick the packed trick
+     * @param ledSuit the suit of the card led
+     * @param trump {@code Rules.CLUBS} to {@code Rules.NOTRUMP}
+     * @return the seat that won
+     */
+    public static int winner(int trick, int ledSuit, int trump) {
+        int base = 256 * trump + 64 * ledSuit;
+
+        // The strength above the seat, so the largest value gives both
+        int n = STRENGTH[base + (trick & 0xFF)] << 2;
+        int e = STRENGTH[base + (trick >>> 8 & 0xFF)] << 2 | Rules.EAST;
+        int s = STRENGTH[base + (trick >>> 16 & 0xFF)] << 2 | Rules.SOUTH;
+        int w = STRENGTH[base + (trick >>> 24)] << 2 | Rules.WEST;
+
+        return Math.max(Math.max(n, e), Math.max(s, w)) & 3;
+    }
+
+    /**
+     * Find the winner of a trick from the seat that led to it.
+     *
+     * @param trick the packed trick
+     * @param leader the seat that played the first card
+     * @param trump {@code Rules.CLUBS} to {@code Rules.NOTRUMP}
+     * @return the seat that won
+     */
+    public static int winnerFrom(int trick, int leader, int trump) {
+        return Tricks.winner(trick, Tricks.card(trick, leader) / 13, trump);
+    }
+
+    /**
+     * Find the winners of many tricks.
+     *
+     * @param tricks the packed tricks
+     * @param ledSuits the suit led to each trick
+     * @param trump {@code Rules.CLUBS} to {@code Rules.NOTRUMP}
+     * @param winners the array to fill with the seat that won each trick
+     * @param count the number of tricks
+     */
+    public static void winners(int[] tricks, byte[] ledSuits, int trump, byte[] winners, int count) {
+        for (int i = 0; i < count; i++) {
+            winners[i] = (byte) Tricks.winner(tricks[i], ledSuits[i], trump);
+        }
+    }
+
+    /**
+     * Replay the tricks of a hand in order, each led by the winner of the one
+     * before.
+     *
+     * @param tricks the packed tricks, in the order played
+     * @param leader the seat that led to the first trick
+     * @param trump {@code Rules.CLUBS} to {@code Rules.NOTRUMP}
+     * @param winners the array to fill with the seat that won each trick
+     * @param count the number of tricks
+     * @return the number of tricks won by North/South
+     */
+    public static int replay(int[] tricks, int leader, int trump, byte[] winners, int count) {
+        int northSouth = 0;
+        for (int i = 0; i < count; i++) {
+            leader = Tricks.winnerFrom(tricks[i], leader, trump);
+            winners[i] = (byte) leader;
+            northSouth += ~leader & 1;
+        }
+
+        return northSouth;
+    }
+}
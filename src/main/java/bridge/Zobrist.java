@@ -0,0 +1,230 @@
+package bridge;
+
+import java.util.SplittableRandom;
+
+/**
+ * 64-bit hash keys for positions, built by XORing a random key for each part
+ * of the position, so that playing or unplaying a card changes the key with a
+ * couple of XORs instead of rehashing the whole position.
+ *
+ * A position is the cards each seat holds (see {@link Hand}), the seat on
+ * lead, and the cards played to the current trick. Three kinds of key are
+ * offered:
+ *
+ * 1. {@link #hash} depends on exactly which cards are where.
+ * 2. {@link #shape} depends only on how many cards of each suit each seat
+ *    holds and the leader.
+ * 3. {@link #relative} depends on who holds each remaining card in order
+ *    from the top of each suit and the leader, so it's the same for positions
+ *    that differ only in which small cards have been played, as long as the
+ *    remaining cards rank in the same order.
+ *
+ * The random keys come from a fixed seed, so keys are the same in every run
+ * and can be stored.
+ */
+public final class Zobrist {
+    /**
+     * The key of each card held by each seat, indexed by
+     * {@code 4 * card + seat}.
+     */
+    private static final long[] HELD = new long[52 * 4];
+
+    /**
+     * The key of each card on the table in the current trick.
+     */
+    private static final long[] PLAYED = new long[52];
+
+    private static final long[] LEADER = new long[4];
+
+    /**
+     * The key of each seat holding each number of cards of each suit,
+     * indexed by {@code 14 * (4 * seat + suit) + length}.
+     */
+    private static final long[] LENGTH = new long[4 * 4 * 14];
+
+    static {
+        SplittableRandom random = new SplittableRandom(0x5EED_B41D_6E2DL);
+        for (int i = 0; i < HELD.length; i++)   { HELD[i] = random.nextLong(); }
+        for (int i = 0; i < PLAYED.length; i++) { PLAYED[i] = random.nextLong(); }
+        for (int i = 0; i < LEADER.length; i++) { LEADER[i] = random.nextLong(); }
+        for (int i = 0; i < LENGTH.length; i++) { LENGTH[i] = random.nextLong(); }
+    }
+
+    private Zobrist() {} // A Zobrist object should never be instantiated
+
+    /**
+     * Get the key of a card held by a seat.
+     *
+     * @param card the index of the card (see {@link Card#index()})
+     * @param seat {@code Rules.NORTH} to {@code Rules.WEST}
+     * @return the key
+     */
+    public static long held(int card, int seat) { return HELD[4 * card + seat]; }
+
+    /**
+     * Get the key of a card held by a seat.
+     *
+     * @param card the card
+     * @param seat {@code Rules.NORTH} to {@code Rules.WEST}
+     * @return the key
+     */
+    public static long held(Card card, int seat) { return HELD[4 * card.index() + seat]; }
+
+    /**
+     * Get the key of a card played to the current trick.
+     *
+     * @param card the index of the card
+     * @return the key
+     */
+    public static long played(int card) { return PLAYED[card]; }
+
+    /**
+     * Get the key of the seat on lead.
+     *
+     * @param seat {@code Rules.NORTH} to {@code Rules.WEST}
+     * @return the key
+     */
+    public static long leader(int seat) { return LEADER[seat]; }
+
+    /**
+     * Hash a position from scratch.
+     *
+     * @param hands the bitboards of the cards each seat holds, indexed by seat
+     * @param leader the seat on lead
+     * @param trick the cards played to the current trick, as a bitboard
+     * @return the key
+     */
+    public static long hash(long[] hands, int leader, long trick) {
+        long key = LEADER[leader];
+        for (int seat = Rules.NORTH; seat <= Rules.WEST; seat++) {
+            for (long h = hands[seat]; h != 0; h &= h - 1) { key ^= HELD[4 * Long.numberOfTrailingZeros(h) + seat]; }
+        }
+        for (long t = trick; t != 0; t &= t - 1) { key ^= PLAYED[Long.numberOfTrailingZeros(t)]; }
+
+        return key;
+    }
+
+    /**
+     * Update a key from {@link #hash} for a card moving from a seat's hand to
+     * the table.
+     *
+     * @param key the key before the card is played
+     * @param card the index of the card
+     * @param seat the seat playing it
+     * @return the key after the card is played
+     */
+    public static long play(long key, int card, int seat) { return key ^ HELD[4 * card + seat] ^ PLAYED[card]; }
+
+    /**
+     * Update a key from {@link #hash} for a card going back from the table to
+     * a seat's hand.
+     *
+     * @param key the key while the card is on the table
+     * @param card the index of the card
+     * @param seat the seat that played it
+     * @return the key before the card was played
+     */
+    public static long unplay(long key, int card, int seat) { return Zobrist.play(key, card, seat); }
+
+    /**
+     * Update a key from {@link #hash} for a complete trick being gathered and
+     * the lead passing to its winner. Applying this again with the same
+     * arguments puts the trick back.
+     *
+     * @param key the key with the trick on the table
+     * @param trick the cards of the trick, as a bitboard
+     * @param leader the seat that led to the trick
+     * @param winner the seat that won it
+     * @return the key at the start of the next trick
+     */
+    public static long gather(long key, long trick, int leader, int winner) {
+        for (long t = trick; t != 0; t &= t - 1) { key ^= PLAYED[Long.numberOfTrailingZeros(t)]; }
+
+        return key ^ LEADER[leader] ^ LEADER[winner];
+    }
+
+    /**
+     * Hash the suit lengths of every seat and the leader. Every position with
+     * the same lengths has the same key, whatever the ranks.
+     *
+     * @param hands the bitboards of the cards each seat holds, indexed by seat
+     * @param leader the seat on lead
+     * @return the key
+     */
+    public static long shape(long[] hands, int leader) {
+        long key = LEADER[leader];
+        for (int seat = Rules.NORTH; seat <= Rules.WEST; seat++) {
+            for (int s = Rules.CLUBS; s <= Rules.SPADES; s++) {
+                key ^= LENGTH[14 * (4 * seat + s) + Hand.length(hands[seat], s)];
+            }
+        }
+
+        return key;
+    }
+
+    /**
+     * Update a key from {@link #shape} for a seat playing a card. Unplaying
+     * it is the same update with the lengths swapped.
+     *
+     * @param key the key before the card is played
+     * @param seat the seat playing it
+     * @param suit the suit of the card
+     * @param length the number of cards of the suit the seat held before
+     * @return the key after the card is played
+     */
+    public static long shapePlay(long key, int seat, int suit, int length) {
+        int i = 14 * (4 * seat + suit) + length;
+        return key ^ LENGTH[i] ^ LENGTH[i - 1];
+    }
+
+    /**
+     * Hash who holds each remaining card of a suit, from the highest down.
+     * The key of a suit changes only when a card of that suit is played, so
+     * after a play only that suit needs hashing again.
+     *
+     * @param hands the bitboards of the cards each seat holds, indexed by seat
+     * @param suit {@code Rules.CLUBS} to {@code Rules.SPADES}
+     * @return the key of the suit
+     */
+    public static long pattern(long[] hands, int suit) {
+        long e = hands[Rules.EAST], s = hands[Rules.SOUTH], w = hands[Rules.WEST];
+        int live = Hand.holding(hands[Rules.NORTH] | e | s | w, suit);
+
+        // Two bits of owner per card, then the number of cards
+        long owners = 0;
+        int n = 0;
+        for ( ; live != 0; n++) {
+            int r = 31 - Integer.numberOfLeadingZeros(live);
+            live ^= 1 << r;
+            int c = 13 * suit + r;
+            owners |= ((e | w) >>> c & 1 | ((s | w) >>> c & 1) << 1) << (2 * n);
+        }
+
+        return Zobrist.mix(owners | (long) n << 26 | (long) suit << 30);
+    }
+
+    /**
+     * Hash the order of the remaining cards of every suit and the leader.
+     * Positions whose remaining cards are held by the same seats in the same
+     * order have the same key, whichever ranks they are.
+     *
+     * @param hands the bitboards of the cards each seat holds, indexed by seat
+     * @param leader the seat on lead
+     * @return the key
+     */
+    public static long relative(long[] hands, int leader) {
+        long key = LEADER[leader];
+        for (int s = Rules.CLUBS; s <= Rules.SPADES; s++) { key ^= Zobrist.pattern(hands, s); }
+
+        return key;
+    }
+
+    /**
+     * Scramble the bits of a value (the finalizer of SplitMix64).
+     */
+    private static long mix(long x) {
+        x = (x ^ (x >>> 30)) * 0xBF58476D1CE4E5B9L;
+        x = (x ^ (x >>> 27)) * 0x94D049BB133111EBL;
+        return x ^ (x >>> 31);
+    }
+}